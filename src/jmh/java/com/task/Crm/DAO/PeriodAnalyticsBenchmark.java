@@ -0,0 +1,113 @@
+package com.task.Crm.DAO;
+
+import com.task.Crm.Analytics.ColumnarSellerAnalytics;
+import com.task.Crm.Analytics.PrefixSumSellerAnalytics;
+import com.task.Crm.Analytics.SellerAnalytics;
+import com.task.Crm.CrmApplication;
+import com.task.Crm.Services.TransactionService;
+import com.task.Crm.util.PeriodRange;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PeriodAnalyticsBenchmark {
+    private static final int SELLERS = Integer.getInteger("crm.bench.sellers", 1_000);
+    private static final int TRANSACTIONS = Integer.getInteger("crm.bench.transactions", 1_000_000);
+    private static final int DAYS = Integer.getInteger("crm.bench.days", 730);
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext context;
+    @Param({"sql", "columnar", "prefix-sum"})
+    public String backend;
+
+    private SellerAnalytics sellerAnalytics;
+    private TransactionTemplate readOnlyTransaction;
+
+    private PeriodRange year;
+    private PeriodRange unalignedQuarter;
+    private PeriodRange day;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        context = new SpringApplicationBuilder(CrmApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "spring.datasource.username=postgres",
+                        "spring.datasource.password=postgres",
+                        "spring.jpa.properties.hibernate.show_sql=false",
+                        "crm.analytics.backend=" + backend)
+                .run();
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("insert into seller (name, contact_info, registration_date) " +
+                "select 'seller' || g, 'seller' || g || '@example.com', now() " +
+                "from generate_series(1, ?) g", SELLERS);
+        jdbcTemplate.update("insert into transaction (seller_id, amount, payment_type, transaction_date) " +
+                "select 1 + floor(random() * ?)::int, 1 + floor(random() * 1000)::int, " +
+                "(array['CASH', 'CARD', 'TRANSFER'])[1 + floor(random() * 3)::int], " +
+                "current_date - random() * make_interval(days => ?) " +
+                "from generate_series(1, ?)", SELLERS, DAYS, TRANSACTIONS);
+        context.getBean(TransactionService.class).rebuildRevenueRollup();
+        jdbcTemplate.execute("analyze");
+
+        sellerAnalytics = context.getBean(SellerAnalytics.class);
+        if (sellerAnalytics instanceof ColumnarSellerAnalytics columnar) {
+            columnar.reload();
+        }
+        if (sellerAnalytics instanceof PrefixSumSellerAnalytics prefixSum) {
+            prefixSum.reload();
+        }
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        LocalDate lastYear = LocalDate.now().minusYears(1).withDayOfYear(1);
+        year = new PeriodRange(lastYear.atStartOfDay(), lastYear.plusYears(1).atStartOfDay());
+        LocalDateTime quarterStart = LocalDate.now().minusMonths(6).atTime(10, 30);
+        unalignedQuarter = new PeriodRange(quarterStart, quarterStart.plusMonths(3));
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        day = new PeriodRange(yesterday.atStartOfDay(), yesterday.plusDays(1).atStartOfDay());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public List<?> bestSellersForYear() {
+        return readOnlyTransaction.execute(status -> sellerAnalytics.getBestSellerForPeriod(year));
+    }
+
+    @Benchmark
+    public List<?> bestSellersForUnalignedQuarter() {
+        return readOnlyTransaction.execute(status -> sellerAnalytics.getBestSellerForPeriod(unalignedQuarter));
+    }
+
+    @Benchmark
+    public List<?> bestSellersForDay() {
+        return readOnlyTransaction.execute(status -> sellerAnalytics.getBestSellerForPeriod(day));
+    }
+
+    @Benchmark
+    public List<?> sellersBelowAmountForYear() {
+        return readOnlyTransaction.execute(status -> sellerAnalytics.getSellersBelowAmountForPeriod(250_000, year));
+    }
+}
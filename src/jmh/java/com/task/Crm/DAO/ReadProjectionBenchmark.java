@@ -0,0 +1,106 @@
+package com.task.Crm.DAO;
+
+import com.task.Crm.CrmApplication;
+import com.task.Crm.Mappers.SellerMapper;
+import com.task.Crm.Mappers.TransactionMapper;
+import com.task.Crm.Models.Seller;
+import com.task.Crm.Models.Transaction;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReadProjectionBenchmark {
+    private static final int SELLERS = Integer.getInteger("crm.bench.sellers", 1_000);
+    private static final int TRANSACTIONS = Integer.getInteger("crm.bench.read.transactions", 10_000);
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext context;
+    private EntityManager em;
+    private SellerDAO sellerDAO;
+    private TransactionDAO transactionDAO;
+    private SellerMapper sellerMapper;
+    private TransactionMapper transactionMapper;
+    private TransactionTemplate readOnlyTransaction;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        context = new SpringApplicationBuilder(CrmApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "spring.datasource.username=postgres",
+                        "spring.datasource.password=postgres",
+                        "spring.jpa.properties.hibernate.show_sql=false",
+                        "spring.jpa.properties.hibernate.generate_statistics=false")
+                .run();
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("insert into seller (name, contact_info, registration_date) " +
+                "select 'seller' || g, 'seller' || g || '@example.com', now() " +
+                "from generate_series(1, ?) g", SELLERS);
+        jdbcTemplate.update("insert into transaction (seller_id, amount, payment_type, transaction_date) " +
+                "select 1 + floor(random() * ?)::int, 1 + floor(random() * 1000)::int, " +
+                "(array['CASH', 'CARD', 'TRANSFER'])[1 + floor(random() * 3)::int], " +
+                "now() - random() * interval '365 days' " +
+                "from generate_series(1, ?)", SELLERS, TRANSACTIONS);
+        jdbcTemplate.execute("analyze");
+
+        em = context.getBean(EntityManager.class);
+        sellerDAO = context.getBean(SellerDAO.class);
+        transactionDAO = context.getBean(TransactionDAO.class);
+        sellerMapper = context.getBean(SellerMapper.class);
+        transactionMapper = context.getBean(TransactionMapper.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public List<?> sellersAsEntities() {
+        return readOnlyTransaction.execute(status -> em.createQuery("select s from Seller s order by s.id", Seller.class)
+                .getResultList()
+                .stream()
+                .map(sellerMapper::toDTO)
+                .toList());
+    }
+
+    @Benchmark
+    public List<?> sellersAsProjection() {
+        return readOnlyTransaction.execute(status -> sellerDAO.getSellers());
+    }
+
+    @Benchmark
+    public List<?> transactionsAsEntities() {
+        return readOnlyTransaction.execute(status -> em.createQuery("select t from Transaction t " +
+                        "join fetch t.seller order by t.id", Transaction.class)
+                .getResultList()
+                .stream()
+                .map(transactionMapper::toDTO)
+                .toList());
+    }
+
+    @Benchmark
+    public List<?> transactionsAsProjection() {
+        return readOnlyTransaction.execute(status -> transactionDAO.getTransactions());
+    }
+}
@@ -0,0 +1,60 @@
+package com.task.Crm.DTO;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private List<SellerDTO> sellers;
+    private List<TransactionDTO> transactions;
+
+    @Setup
+    public void setUp() {
+        sellers = new ArrayList<>(size);
+        transactions = new ArrayList<>(size);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < size; i++) {
+            SellerDTO seller = new SellerDTO();
+            seller.setId(i);
+            seller.setName("seller" + i);
+            seller.setContact_info("seller" + i + "@example.com");
+            sellers.add(seller);
+
+            TransactionDTO transaction = new TransactionDTO();
+            transaction.setAmount(i * 10);
+            transaction.setPaymentType("CARD");
+            transaction.setTransactionDate(now.minusMinutes(i));
+            transaction.setSeller(seller);
+            transactions.add(transaction);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeSellers() throws Exception {
+        return objectMapper.writeValueAsBytes(sellers);
+    }
+
+    @Benchmark
+    public byte[] serializeTransactions() throws Exception {
+        return objectMapper.writeValueAsBytes(transactions);
+    }
+}
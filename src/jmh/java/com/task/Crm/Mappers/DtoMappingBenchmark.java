@@ -0,0 +1,91 @@
+package com.task.Crm.Mappers;
+
+import com.task.Crm.DTO.SellerDTO;
+import com.task.Crm.DTO.TransactionDTO;
+import com.task.Crm.Models.Seller;
+import com.task.Crm.Models.Transaction;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(DtoMappingBenchmark.ELEMENTS)
+public class DtoMappingBenchmark {
+    static final int ELEMENTS = 1000;
+
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final SellerMapper sellerMapper = new SellerMapper();
+    private final TransactionMapper transactionMapper = new TransactionMapper(sellerMapper);
+
+    private List<Seller> sellers;
+    private List<Transaction> transactions;
+    private List<TransactionDTO> transactionDTOs;
+
+    @Setup
+    public void setUp() {
+        sellers = new ArrayList<>(ELEMENTS);
+        transactions = new ArrayList<>(ELEMENTS);
+        transactionDTOs = new ArrayList<>(ELEMENTS);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ELEMENTS; i++) {
+            Seller seller = new Seller(i, "seller" + i, "seller" + i + "@example.com", now);
+            Transaction transaction = new Transaction(i, i * 10, "CASH", now.minusMinutes(i));
+            transaction.setSeller(seller);
+            sellers.add(seller);
+            transactions.add(transaction);
+            transactionDTOs.add(transactionMapper.toDTO(transaction));
+        }
+    }
+
+    @Benchmark
+    public void modelMapperSellerToDTO(Blackhole blackhole) {
+        for (Seller seller : sellers) {
+            blackhole.consume(modelMapper.map(seller, SellerDTO.class));
+        }
+    }
+
+    @Benchmark
+    public void sellerMapperToDTO(Blackhole blackhole) {
+        for (Seller seller : sellers) {
+            blackhole.consume(sellerMapper.toDTO(seller));
+        }
+    }
+
+    @Benchmark
+    public void modelMapperTransactionToDTO(Blackhole blackhole) {
+        for (Transaction transaction : transactions) {
+            blackhole.consume(modelMapper.map(transaction, TransactionDTO.class));
+        }
+    }
+
+    @Benchmark
+    public void transactionMapperToDTO(Blackhole blackhole) {
+        for (Transaction transaction : transactions) {
+            blackhole.consume(transactionMapper.toDTO(transaction));
+        }
+    }
+
+    @Benchmark
+    public void modelMapperTransactionToEntity(Blackhole blackhole) {
+        for (TransactionDTO transactionDTO : transactionDTOs) {
+            blackhole.consume(modelMapper.map(transactionDTO, Transaction.class));
+        }
+    }
+
+    @Benchmark
+    public void transactionMapperToEntity(Blackhole blackhole) {
+        for (TransactionDTO transactionDTO : transactionDTOs) {
+            blackhole.consume(transactionMapper.toEntity(transactionDTO));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.task.Crm.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PeriodValidationBenchmark {
+    private final LocalDateTime startDate = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Param({"year", "month", "day", "quarter", "specifiedDates"})
+    private String period;
+
+    private LocalDateTime endDate;
+
+    @Setup
+    public void setUp() {
+        endDate = switch (period) {
+            case "year" -> startDate.plusYears(1);
+            case "month" -> startDate.plusMonths(1);
+            case "quarter" -> startDate.plusMonths(3);
+            default -> startDate.plusDays(1);
+        };
+    }
+
+    @Benchmark
+    public String getMood() {
+        return PeriodValidation.getMood(period, startDate, endDate);
+    }
+
+    @Benchmark
+    public String getMoodMismatch() {
+        return PeriodValidation.getMood(period, startDate, endDate.plusDays(1));
+    }
+
+    @Benchmark
+    public PeriodRange getPeriodRange() {
+        return PeriodValidation.getPeriodRange(period, startDate, endDate);
+    }
+}
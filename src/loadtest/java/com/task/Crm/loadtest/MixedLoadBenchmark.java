@@ -0,0 +1,148 @@
+package com.task.Crm.loadtest;
+
+import com.task.Crm.CrmApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class MixedLoadBenchmark {
+    private static final int CONCURRENCY = Integer.getInteger("bench.concurrency", 500);
+    private static final Duration WARMUP = Duration.parse(System.getProperty("bench.warmup", "PT10S"));
+    private static final Duration DURATION = Duration.parse(System.getProperty("bench.duration", "PT30S"));
+    private static final int SELLER_ID = Integer.getInteger("bench.sellerId", 1);
+    private static final int WRITE_PERCENT = Integer.getInteger("bench.writePercent", 10);
+
+    public static void main(String[] args) throws Exception {
+        List<String> modes = Arrays.asList(System.getProperty("bench.modes", "platform,virtual").split(","));
+        List<String> report = new ArrayList<>();
+        for (String mode : modes) {
+            report.add(run(mode));
+        }
+        System.out.println();
+        System.out.printf("%-10s %12s %10s %10s %10s %8s%n", "mode", "requests/s", "p50 ms", "p99 ms", "max ms", "errors");
+        report.forEach(System.out::println);
+    }
+
+    private static String run(String mode) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CrmApplication.class)
+                .properties("server.port=0",
+                        "spring.jpa.properties.hibernate.show_sql=false",
+                        "spring.threads.virtual.enabled=" + "virtual".equals(mode))
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String baseUrl = "http://localhost:" + port;
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+
+            drive(client, baseUrl, WARMUP, null);
+            LatencyRecorder recorder = new LatencyRecorder();
+            long elapsed = drive(client, baseUrl, DURATION, recorder);
+            return recorder.summary(mode, elapsed);
+        }
+    }
+
+    private static long drive(HttpClient client, String baseUrl, Duration duration, LatencyRecorder recorder)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CONCURRENCY; i++) {
+                workers.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = nextRequest(baseUrl);
+                        long requestStart = System.nanoTime();
+                        boolean ok;
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            ok = response.statusCode() < 500;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        if (recorder != null) {
+                            recorder.record(System.nanoTime() - requestStart, ok);
+                        }
+                    }
+                });
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static HttpRequest nextRequest(String baseUrl) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int roll = random.nextInt(100);
+        if (roll < WRITE_PERCENT) {
+            String body = "{\"amount\": " + random.nextInt(1, 1000) + ", \"paymentType\": \"CASH\", "
+                    + "\"seller\": {\"id\": " + SELLER_ID + "}}";
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/api/transactions/createTransaction"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+        String path;
+        if (roll < 40) {
+            path = "/api/sellers/getSellerById/" + SELLER_ID;
+        } else if (roll < 60) {
+            path = "/api/sellers/getSellersPage?size=20";
+        } else if (roll < 80) {
+            path = "/api/transactions/getTransaction/" + random.nextInt(1, 1000);
+        } else {
+            LocalDate month = LocalDate.now().minusMonths(random.nextInt(1, 13)).withDayOfMonth(1);
+            path = "/api/sellers/getBestSellerForPeriod/month?startDate=" + month.atStartOfDay();
+        }
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private static class LatencyRecorder {
+        private static final long BUCKET_NANOS = 100_000;
+        private static final int BUCKETS = 100_000;
+
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS + 1);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos, boolean ok) {
+            count.incrementAndGet();
+            if (!ok) {
+                errors.incrementAndGet();
+            }
+            histogram.incrementAndGet((int) Math.min(BUCKETS, nanos / BUCKET_NANOS));
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        String summary(String mode, long elapsedNanos) {
+            double seconds = elapsedNanos / 1e9;
+            return String.format("%-10s %12.1f %10.2f %10.2f %10.2f %8d", mode, count.get() / seconds,
+                    percentile(0.50), percentile(0.99), maxNanos.get() / 1e6, errors.get());
+        }
+
+        private double percentile(double percentile) {
+            long target = (long) Math.ceil(percentile * count.get());
+            long seen = 0;
+            for (int bucket = 0; bucket <= BUCKETS; bucket++) {
+                seen += histogram.get(bucket);
+                if (seen >= target) {
+                    return (bucket + 1) * BUCKET_NANOS / 1e6;
+                }
+            }
+            return maxNanos.get() / 1e6;
+        }
+    }
+}
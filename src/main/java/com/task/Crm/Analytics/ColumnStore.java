@@ -0,0 +1,278 @@
+package com.task.Crm.Analytics;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+public class ColumnStore {
+    private final int chunkSize;
+    private final boolean offHeap;
+    private final Object writeLock = new Object();
+    private volatile Snapshot snapshot;
+
+    public ColumnStore(int chunkSize, boolean offHeap) {
+        this.chunkSize = chunkSize;
+        this.offHeap = offHeap;
+        this.snapshot = new Snapshot(List.of(), new Chunk(chunkSize, offHeap));
+    }
+
+    public static long toMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    public void append(int sellerId, LocalDateTime transactionDate, int amount, int count) {
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            Chunk tail = current.tail();
+            if (tail.size == chunkSize) {
+                List<Chunk> sealed = new ArrayList<>(current.sealed());
+                sealed.add(tail.seal(offHeap));
+                tail = new Chunk(chunkSize, offHeap);
+                snapshot = new Snapshot(List.copyOf(sealed), tail);
+            }
+            tail.append(sellerId, toMicros(transactionDate), amount, (byte) count);
+        }
+    }
+
+    public long size() {
+        Snapshot current = snapshot;
+        return (long) current.sealed().size() * chunkSize + current.tail().size;
+    }
+
+    public Totals aggregate(LocalDateTime start, LocalDateTime end, ForkJoinPool pool) {
+        Snapshot current = snapshot;
+        List<Slice> slices = new ArrayList<>(current.sealed().size() + 1);
+        for (Chunk chunk : current.sealed()) {
+            slices.add(new Slice(chunk, chunk.size));
+        }
+        slices.add(new Slice(current.tail(), current.tail().size));
+        int leafSize = Math.max(1, slices.size() / (pool.getParallelism() * 4));
+        return pool.invoke(new ScanTask(slices, 0, slices.size(), leafSize, toMicros(start), toMicros(end)));
+    }
+
+    private record Snapshot(List<Chunk> sealed, Chunk tail) {}
+
+    private record Slice(Chunk chunk, int size) {}
+
+    /**
+     * Per-seller sums kept in an open-addressing map of primitives. Every scan leaf allocates its own totals, so
+     * they grow with the sellers the leaf actually saw instead of being sized to the largest seller id.
+     */
+    public static class Totals {
+        private static final int INITIAL_CAPACITY = 16;
+
+        // Seller id + 1, so that 0 marks a free slot.
+        private int[] keys = new int[INITIAL_CAPACITY];
+        private long[] amounts = new long[INITIAL_CAPACITY];
+        private int[] counts = new int[INITIAL_CAPACITY];
+        private int size;
+
+        void add(int sellerId, long amount, int count) {
+            int slot = slot(sellerId + 1);
+            if (keys[slot] == 0) {
+                if ((size + 1) * 2 > keys.length) {
+                    grow();
+                    slot = slot(sellerId + 1);
+                }
+                keys[slot] = sellerId + 1;
+                size++;
+            }
+            amounts[slot] += amount;
+            counts[slot] += count;
+        }
+
+        Totals merge(Totals other) {
+            if (other.size > size) {
+                return other.merge(this);
+            }
+            for (int i = 0; i < other.keys.length; i++) {
+                if (other.keys[i] != 0) {
+                    add(other.keys[i] - 1, other.amounts[i], other.counts[i]);
+                }
+            }
+            return this;
+        }
+
+        public List<Integer> bestSellers() {
+            long best = Long.MIN_VALUE;
+            List<Integer> sellerIds = new ArrayList<>();
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == 0 || counts[i] <= 0) {
+                    continue;
+                }
+                if (amounts[i] > best) {
+                    best = amounts[i];
+                    sellerIds.clear();
+                }
+                if (amounts[i] == best) {
+                    sellerIds.add(keys[i] - 1);
+                }
+            }
+            sellerIds.sort(null);
+            return sellerIds;
+        }
+
+        public long amount(int sellerId) {
+            int slot = slot(sellerId + 1);
+            return keys[slot] == 0 ? 0 : amounts[slot];
+        }
+
+        private int slot(int key) {
+            int mask = keys.length - 1;
+            int hash = key * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            long[] oldAmounts = amounts;
+            int[] oldCounts = counts;
+            keys = new int[oldKeys.length * 2];
+            amounts = new long[oldKeys.length * 2];
+            counts = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = slot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    amounts[slot] = oldAmounts[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+    }
+
+    private static class ScanTask extends RecursiveTask<Totals> {
+        private final List<Slice> slices;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final long start;
+        private final long end;
+
+        ScanTask(List<Slice> slices, int from, int to, int leafSize, long start, long end) {
+            this.slices = slices;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from > leafSize) {
+                int middle = (from + to) >>> 1;
+                ScanTask left = new ScanTask(slices, from, middle, leafSize, start, end);
+                ScanTask right = new ScanTask(slices, middle, to, leafSize, start, end);
+                left.fork();
+                Totals totals = right.compute();
+                return totals.merge(left.join());
+            }
+            Totals totals = new Totals();
+            for (int i = from; i < to; i++) {
+                Slice slice = slices.get(i);
+                slice.chunk().scan(slice.size(), start, end, totals);
+            }
+            return totals;
+        }
+    }
+
+    private static class Chunk {
+        private final IntBuffer sellerIds;
+        private final LongBuffer times;
+        private final IntBuffer amounts;
+        private final ByteBuffer counts;
+        private volatile int size;
+        private long minTime = Long.MAX_VALUE;
+        private long maxTime = Long.MIN_VALUE;
+        private boolean sorted = true;
+
+        Chunk(int capacity, boolean offHeap) {
+            this.sellerIds = allocate(capacity * Integer.BYTES, offHeap).asIntBuffer();
+            this.times = allocate(capacity * Long.BYTES, offHeap).asLongBuffer();
+            this.amounts = allocate(capacity * Integer.BYTES, offHeap).asIntBuffer();
+            this.counts = allocate(capacity, offHeap);
+        }
+
+        private static ByteBuffer allocate(int bytes, boolean offHeap) {
+            return offHeap ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes);
+        }
+
+        void append(int sellerId, long time, int amount, byte count) {
+            int row = size;
+            sellerIds.put(row, sellerId);
+            times.put(row, time);
+            amounts.put(row, amount);
+            counts.put(row, count);
+            if (time < maxTime) {
+                sorted = false;
+            }
+            minTime = Math.min(minTime, time);
+            maxTime = Math.max(maxTime, time);
+            size = row + 1;
+        }
+
+        Chunk seal(boolean offHeap) {
+            if (sorted) {
+                return this;
+            }
+            Chunk sortedChunk = new Chunk(size, offHeap);
+            IntStream.range(0, size)
+                    .boxed()
+                    .sorted(Comparator.comparingLong(times::get))
+                    .forEachOrdered(row -> sortedChunk.append(sellerIds.get(row), times.get(row),
+                            amounts.get(row), counts.get(row)));
+            return sortedChunk;
+        }
+
+        void scan(int rows, long start, long end, Totals totals) {
+            if (rows == 0 || maxTime < start || minTime >= end) {
+                return;
+            }
+            if (sorted) {
+                int from = lowerBound(rows, start);
+                int to = lowerBound(rows, end);
+                for (int row = from; row < to; row++) {
+                    add(row, totals);
+                }
+            } else {
+                for (int row = 0; row < rows; row++) {
+                    long time = times.get(row);
+                    if (time >= start && time < end) {
+                        add(row, totals);
+                    }
+                }
+            }
+        }
+
+        private void add(int row, Totals totals) {
+            totals.add(sellerIds.get(row), amounts.get(row), counts.get(row));
+        }
+
+        private int lowerBound(int rows, long time) {
+            int low = 0;
+            int high = rows;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (times.get(middle) < time) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.task.Crm.Analytics;
+
+import com.task.Crm.DAO.SellerDAO;
+import com.task.Crm.DAO.TransactionDAO;
+import com.task.Crm.DTO.SellerDTO;
+import com.task.Crm.Events.ImportCompletedEvent;
+import com.task.Crm.Events.ReloadBarrier;
+import com.task.Crm.Events.TransactionChangedEvent;
+import com.task.Crm.Services.AnalyticsCache;
+import com.task.Crm.Services.VersionRegistry;
+import com.task.Crm.util.ImportTarget;
+import com.task.Crm.util.PeriodRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+@Component
+@ConditionalOnProperty(name = "crm.analytics.backend", havingValue = "columnar")
+public class ColumnarSellerAnalytics implements SellerAnalytics, SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(ColumnarSellerAnalytics.class);
+
+    private final SellerDAO sellerDAO;
+    private final TransactionDAO transactionDAO;
+    private final AnalyticsCache analyticsCache;
+    private final VersionRegistry versionRegistry;
+    private final TransactionTemplate snapshotTransaction;
+    private final ReloadBarrier changes = new ReloadBarrier();
+    private final int chunkSize;
+    private final boolean offHeap;
+    private final int parallelism;
+    private volatile ColumnStore store;
+    private volatile ForkJoinPool pool;
+    private volatile boolean loaded;
+
+    @Autowired
+    public ColumnarSellerAnalytics(SellerDAO sellerDAO, TransactionDAO transactionDAO, AnalyticsCache analyticsCache,
+                                   VersionRegistry versionRegistry, PlatformTransactionManager transactionManager,
+                                   @Value("${crm.analytics.columnar.chunk-size:65536}") int chunkSize,
+                                   @Value("${crm.analytics.columnar.off-heap:false}") boolean offHeap,
+                                   @Value("${crm.analytics.columnar.parallelism:0}") int parallelism) {
+        this.sellerDAO = sellerDAO;
+        this.transactionDAO = transactionDAO;
+        this.analyticsCache = analyticsCache;
+        this.versionRegistry = versionRegistry;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.chunkSize = chunkSize;
+        this.offHeap = offHeap;
+        this.store = new ColumnStore(chunkSize, offHeap);
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public List<SellerDTO> getBestSellerForPeriod(PeriodRange period) {
+        if (!loaded) {
+            return sellerDAO.getBestSellerForPeriod(period);
+        }
+        return getSellers(store.aggregate(period.start(), period.end(), pool).bestSellers());
+    }
+
+    @Override
+    public List<SellerDTO> getSellersBelowAmountForPeriod(double amount, PeriodRange period) {
+        if (!loaded) {
+            return sellerDAO.getSellersBelowAmountForPeriod(amount, period);
+        }
+        ColumnStore.Totals totals = store.aggregate(period.start(), period.end(), pool);
+        return sellerDAO.getSellers().stream()
+                .filter(seller -> totals.amount(seller.getId()) < amount)
+                .toList();
+    }
+
+    @EventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        changes.afterCommit(() -> apply(event));
+    }
+
+    @EventListener
+    public void onImportCompleted(ImportCompletedEvent event) {
+        if (loaded && event.target() == ImportTarget.TRANSACTIONS && event.imported() > 0) {
+            reload();
+        }
+    }
+
+    public synchronized void reload() {
+        long started = System.currentTimeMillis();
+        ColumnStore reloaded = new ColumnStore(chunkSize, offHeap);
+        try {
+            snapshotTransaction.executeWithoutResult(status -> {
+                changes.pin(transactionDAO::takeSnapshot);
+                transactionDAO.scanRowsByDate((sellerId, transactionDate, amount) ->
+                        reloaded.append(sellerId, transactionDate, amount, 1));
+            });
+        } catch (RuntimeException e) {
+            changes.cancel();
+            versionRegistry.analyticsChanged();
+            throw e;
+        }
+        changes.replay(() -> store = reloaded);
+        analyticsCache.invalidateAll();
+        versionRegistry.analyticsChanged();
+        log.info("Columnar analytics loaded {} transactions in {} ms", reloaded.size(),
+                System.currentTimeMillis() - started);
+    }
+
+    @Override
+    public void start() {
+        pool = new ForkJoinPool(parallelism);
+        reload();
+        loaded = true;
+    }
+
+    @Override
+    public void stop() {
+        loaded = false;
+        pool.shutdown();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return loaded;
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void apply(TransactionChangedEvent event) {
+        for (TransactionChangedEvent.Change change : event.changes()) {
+            if (change.before() != null) {
+                store.append(change.before().sellerId(), change.before().transactionDate(),
+                        -change.before().amount(), -1);
+                analyticsCache.invalidate(change.before().transactionDate());
+            }
+            if (change.after() != null) {
+                store.append(change.after().sellerId(), change.after().transactionDate(),
+                        change.after().amount(), 1);
+                analyticsCache.invalidate(change.after().transactionDate());
+            }
+        }
+    }
+
+    private List<SellerDTO> getSellers(List<Integer> sellerIds) {
+        if (sellerIds.isEmpty()) {
+            return List.of();
+        }
+        return sellerDAO.getSellersByIds(sellerIds);
+    }
+}
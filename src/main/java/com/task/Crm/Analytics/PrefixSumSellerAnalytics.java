@@ -0,0 +1,203 @@
+package com.task.Crm.Analytics;
+
+import com.task.Crm.DAO.SellerDAO;
+import com.task.Crm.DAO.TransactionDAO;
+import com.task.Crm.DTO.SellerDTO;
+import com.task.Crm.Events.ImportCompletedEvent;
+import com.task.Crm.Events.ReloadBarrier;
+import com.task.Crm.Events.SellerChangedEvent;
+import com.task.Crm.Events.TransactionChangedEvent;
+import com.task.Crm.Services.AnalyticsCache;
+import com.task.Crm.Services.VersionRegistry;
+import com.task.Crm.util.PeriodRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@ConditionalOnProperty(name = "crm.analytics.backend", havingValue = "prefix-sum")
+public class PrefixSumSellerAnalytics implements SellerAnalytics, SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(PrefixSumSellerAnalytics.class);
+
+    private final SellerDAO sellerDAO;
+    private final TransactionDAO transactionDAO;
+    private final AnalyticsCache analyticsCache;
+    private final VersionRegistry versionRegistry;
+    private final TransactionTemplate snapshotTransaction;
+    private final ReloadBarrier changes = new ReloadBarrier();
+    private final int initialDays;
+    private volatile SellerRevenueIndex index;
+    private volatile boolean loaded;
+
+    @Autowired
+    public PrefixSumSellerAnalytics(SellerDAO sellerDAO, TransactionDAO transactionDAO, AnalyticsCache analyticsCache,
+                                    VersionRegistry versionRegistry, PlatformTransactionManager transactionManager,
+                                    @Value("${crm.analytics.prefix-sum.initial-days:1024}") int initialDays) {
+        this.sellerDAO = sellerDAO;
+        this.transactionDAO = transactionDAO;
+        this.analyticsCache = analyticsCache;
+        this.versionRegistry = versionRegistry;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.initialDays = initialDays;
+        this.index = new SellerRevenueIndex(LocalDate.now(), initialDays);
+    }
+
+    @Override
+    public List<SellerDTO> getBestSellerForPeriod(PeriodRange period) {
+        if (!loaded) {
+            return sellerDAO.getBestSellerForPeriod(period);
+        }
+        long best = Long.MIN_VALUE;
+        List<Integer> sellerIds = new ArrayList<>();
+        for (Map.Entry<Integer, long[]> entry : getTotals(period).entrySet()) {
+            long[] total = entry.getValue();
+            if (total[1] <= 0) {
+                continue;
+            }
+            if (total[0] > best) {
+                best = total[0];
+                sellerIds.clear();
+            }
+            if (total[0] == best) {
+                sellerIds.add(entry.getKey());
+            }
+        }
+        return getSellers(sellerIds);
+    }
+
+    @Override
+    public List<SellerDTO> getSellersBelowAmountForPeriod(double amount, PeriodRange period) {
+        if (!loaded) {
+            return sellerDAO.getSellersBelowAmountForPeriod(amount, period);
+        }
+        List<Integer> sellerIds = new ArrayList<>();
+        getTotals(period).forEach((sellerId, total) -> {
+            if (total[0] < amount) {
+                sellerIds.add(sellerId);
+            }
+        });
+        return getSellers(sellerIds);
+    }
+
+    @EventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        changes.afterCommit(() -> apply(event));
+    }
+
+    @EventListener
+    public void onSellerChanged(SellerChangedEvent event) {
+        changes.afterCommit(() -> apply(event));
+    }
+
+    @EventListener
+    public void onImportCompleted(ImportCompletedEvent event) {
+        if (loaded && event.imported() > 0) {
+            reload();
+        }
+    }
+
+    public synchronized void reload() {
+        long started = System.currentTimeMillis();
+        SellerRevenueIndex reloaded = new SellerRevenueIndex(LocalDate.now(), initialDays);
+        try {
+            snapshotTransaction.executeWithoutResult(status -> {
+                changes.pin(transactionDAO::takeSnapshot);
+                sellerDAO.getSellerIds().forEach(reloaded::addSeller);
+                transactionDAO.scanRowsByDate((sellerId, transactionDate, amount) ->
+                        reloaded.add(sellerId, transactionDate.toLocalDate(), amount, 1));
+            });
+        } catch (RuntimeException e) {
+            changes.cancel();
+            versionRegistry.analyticsChanged();
+            throw e;
+        }
+        changes.replay(() -> index = reloaded);
+        analyticsCache.invalidateAll();
+        versionRegistry.analyticsChanged();
+        log.info("Prefix sum analytics indexed {} sellers in {} ms", reloaded.sellers(),
+                System.currentTimeMillis() - started);
+    }
+
+    @Override
+    public void start() {
+        reload();
+        loaded = true;
+    }
+
+    @Override
+    public void stop() {
+        loaded = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return loaded;
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void apply(TransactionChangedEvent event) {
+        for (TransactionChangedEvent.Change change : event.changes()) {
+            if (change.before() != null) {
+                index.add(change.before().sellerId(), change.before().transactionDate().toLocalDate(),
+                        -change.before().amount(), -1);
+                analyticsCache.invalidate(change.before().transactionDate());
+            }
+            if (change.after() != null) {
+                index.add(change.after().sellerId(), change.after().transactionDate().toLocalDate(),
+                        change.after().amount(), 1);
+                analyticsCache.invalidate(change.after().transactionDate());
+            }
+        }
+    }
+
+    private void apply(SellerChangedEvent event) {
+        switch (event.type()) {
+            case CREATED -> index.addSeller(event.sellerId());
+            case DELETED -> index.removeSeller(event.sellerId());
+        }
+        analyticsCache.invalidateAll();
+    }
+
+    private Map<Integer, long[]> getTotals(PeriodRange period) {
+        PeriodRange.DaySplit split = period.splitByDays();
+        Map<Integer, long[]> totals = new HashMap<>();
+        index.forEachTotal(split.firstDay(), split.lastDay(),
+                (sellerId, amount, count) -> totals.put(sellerId, new long[]{amount, count}));
+        if (split.hasRawRows(period)) {
+            for (SellerDAO.SellerRevenue revenue : sellerDAO.getPartialDayRevenue(period)) {
+                long[] total = totals.get(revenue.sellerId());
+                if (total != null) {
+                    total[0] += revenue.amount();
+                    total[1] += revenue.count();
+                }
+            }
+        }
+        return totals;
+    }
+
+    private List<SellerDTO> getSellers(List<Integer> sellerIds) {
+        if (sellerIds.isEmpty()) {
+            return List.of();
+        }
+        return sellerDAO.getSellersByIds(sellerIds);
+    }
+}
@@ -0,0 +1,12 @@
+package com.task.Crm.Analytics;
+
+import com.task.Crm.DTO.SellerDTO;
+import com.task.Crm.util.PeriodRange;
+
+import java.util.List;
+
+public interface SellerAnalytics {
+    List<SellerDTO> getBestSellerForPeriod(PeriodRange period);
+
+    List<SellerDTO> getSellersBelowAmountForPeriod(double amount, PeriodRange period);
+}
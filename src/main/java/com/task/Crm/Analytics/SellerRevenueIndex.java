@@ -0,0 +1,160 @@
+package com.task.Crm.Analytics;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class SellerRevenueIndex {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Tree> trees = new HashMap<>();
+    private LocalDate baseDay;
+    private int capacity;
+
+    public interface TotalConsumer {
+        void accept(int sellerId, long amount, long count);
+    }
+
+    public SellerRevenueIndex(LocalDate baseDay, int capacity) {
+        this.baseDay = baseDay;
+        this.capacity = Math.max(1, capacity);
+    }
+
+    public void addSeller(int sellerId) {
+        lock.writeLock().lock();
+        try {
+            trees.putIfAbsent(sellerId, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeSeller(int sellerId) {
+        lock.writeLock().lock();
+        try {
+            trees.remove(sellerId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void add(int sellerId, LocalDate day, long amount, long count) {
+        lock.writeLock().lock();
+        try {
+            if (day.isBefore(baseDay)) {
+                resize(day, capacity + (int) ChronoUnit.DAYS.between(day, baseDay));
+            }
+            int index = (int) ChronoUnit.DAYS.between(baseDay, day) + 1;
+            if (index > capacity) {
+                resize(baseDay, Math.max(index, capacity * 2));
+            }
+            Tree tree = trees.get(sellerId);
+            if (tree == null) {
+                tree = new Tree(capacity);
+                trees.put(sellerId, tree);
+            }
+            tree.add(index, amount, count);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void forEachTotal(LocalDate fromDay, LocalDate toDay, TotalConsumer consumer) {
+        lock.readLock().lock();
+        try {
+            int from = toIndex(fromDay);
+            int to = toIndex(toDay);
+            for (Map.Entry<Integer, Tree> entry : trees.entrySet()) {
+                Tree tree = entry.getValue();
+                if (tree == null || from >= to) {
+                    consumer.accept(entry.getKey(), 0, 0);
+                } else {
+                    consumer.accept(entry.getKey(),
+                            Tree.prefix(tree.amounts, to) - Tree.prefix(tree.amounts, from),
+                            Tree.prefix(tree.counts, to) - Tree.prefix(tree.counts, from));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int sellers() {
+        lock.readLock().lock();
+        try {
+            return trees.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int toIndex(LocalDate day) {
+        long index = ChronoUnit.DAYS.between(baseDay, day);
+        return (int) Math.max(0, Math.min(index, capacity));
+    }
+
+    private void resize(LocalDate newBaseDay, int newCapacity) {
+        int shift = (int) ChronoUnit.DAYS.between(newBaseDay, baseDay);
+        for (Map.Entry<Integer, Tree> entry : trees.entrySet()) {
+            if (entry.getValue() != null) {
+                entry.setValue(entry.getValue().resize(shift, newCapacity));
+            }
+        }
+        baseDay = newBaseDay;
+        capacity = newCapacity;
+    }
+
+    private static class Tree {
+        private final long[] amounts;
+        private final long[] counts;
+
+        Tree(int capacity) {
+            this.amounts = new long[capacity + 1];
+            this.counts = new long[capacity + 1];
+        }
+
+        private Tree(long[] amounts, long[] counts) {
+            this.amounts = amounts;
+            this.counts = counts;
+        }
+
+        void add(int index, long amount, long count) {
+            for (int i = index; i < amounts.length; i += i & -i) {
+                amounts[i] += amount;
+                counts[i] += count;
+            }
+        }
+
+        static long prefix(long[] tree, int index) {
+            long sum = 0;
+            for (int i = index; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+
+        Tree resize(int shift, int newCapacity) {
+            return new Tree(resize(amounts, shift, newCapacity), resize(counts, shift, newCapacity));
+        }
+
+        private static long[] resize(long[] tree, int shift, int newCapacity) {
+            long[] values = tree.clone();
+            for (int i = values.length - 1; i > 0; i--) {
+                int parent = i + (i & -i);
+                if (parent < values.length) {
+                    values[parent] -= values[i];
+                }
+            }
+            long[] resized = new long[newCapacity + 1];
+            System.arraycopy(values, 1, resized, 1 + shift, values.length - 1);
+            for (int i = 1; i < resized.length; i++) {
+                int parent = i + (i & -i);
+                if (parent < resized.length) {
+                    resized[parent] += resized[i];
+                }
+            }
+            return resized;
+        }
+    }
+}
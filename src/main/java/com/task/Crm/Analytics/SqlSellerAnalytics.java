@@ -0,0 +1,31 @@
+package com.task.Crm.Analytics;
+
+import com.task.Crm.DAO.SellerDAO;
+import com.task.Crm.DTO.SellerDTO;
+import com.task.Crm.util.PeriodRange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "crm.analytics.backend", havingValue = "sql", matchIfMissing = true)
+public class SqlSellerAnalytics implements SellerAnalytics {
+    private final SellerDAO sellerDAO;
+
+    @Autowired
+    public SqlSellerAnalytics(SellerDAO sellerDAO) {
+        this.sellerDAO = sellerDAO;
+    }
+
+    @Override
+    public List<SellerDTO> getBestSellerForPeriod(PeriodRange period) {
+        return sellerDAO.getBestSellerForPeriod(period);
+    }
+
+    @Override
+    public List<SellerDTO> getSellersBelowAmountForPeriod(double amount, PeriodRange period) {
+        return sellerDAO.getSellersBelowAmountForPeriod(amount, period);
+    }
+}
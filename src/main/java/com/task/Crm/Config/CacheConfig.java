@@ -0,0 +1,30 @@
+package com.task.Crm.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String SELLERS = "sellers";
+    public static final String SELLERS_BY_NAME = "sellersByName";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${crm.cache.sellers.spec:maximumSize=10000,expireAfterWrite=10m,recordStats}") String spec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(SELLERS, SELLERS_BY_NAME) {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new LoadGuardedCaffeineCache(name, cache, isAllowNullValues());
+            }
+        };
+        cacheManager.setCacheSpecification(spec);
+        cacheManager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,170 @@
+package com.task.Crm.Config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Component
+@ConditionalOnProperty(name = "crm.db.bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+public class DataSourceBulkhead implements BeanPostProcessor {
+    private final Duration acquireTimeout;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Autowired
+    public DataSourceBulkhead(@Value("${crm.db.bulkhead.acquire-timeout:5s}") Duration acquireTimeout,
+                              ObjectProvider<MeterRegistry> meterRegistry) {
+        this.acquireTimeout = acquireTimeout;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Only a physical pool gets a bulkhead, sized to that pool. The replica routing data source is a lazy proxy
+    // over several pools that are not beans, so it is skipped here and guards each pool through wrap.
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof BulkheadDataSource)) {
+            HikariDataSource pool = physicalPool(dataSource);
+            if (pool != null) {
+                return new BulkheadDataSource(dataSource, beanName, pool.getMaximumPoolSize());
+            }
+        }
+        return bean;
+    }
+
+    public DataSource wrap(HikariDataSource pool) {
+        return new BulkheadDataSource(pool, pool.getPoolName(), pool.getMaximumPoolSize());
+    }
+
+    // The SQL metrics wrapper may have proxied the pool already, so the pool is looked up through unwrap.
+    private static HikariDataSource physicalPool(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource pool) {
+            return pool;
+        }
+        if (dataSource instanceof LazyConnectionDataSourceProxy) {
+            return null;
+        }
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    private class BulkheadDataSource extends DelegatingDataSource {
+        private final Semaphore semaphore;
+        private final String name;
+        private final int permits;
+        private volatile boolean metricsRegistered;
+        private volatile Timer waitTimer;
+
+        BulkheadDataSource(DataSource target, String name, int permits) {
+            super(target);
+            this.semaphore = new Semaphore(permits, true);
+            this.name = name;
+            this.permits = permits;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            acquire();
+            try {
+                return releasing(super.getConnection());
+            } catch (SQLException | RuntimeException e) {
+                semaphore.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            acquire();
+            try {
+                return releasing(super.getConnection(username, password));
+            } catch (SQLException | RuntimeException e) {
+                semaphore.release();
+                throw e;
+            }
+        }
+
+        private void acquire() throws SQLException {
+            registerMetrics();
+            long started = System.nanoTime();
+            try {
+                boolean acquired = semaphore.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                if (waitTimer != null) {
+                    waitTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+                if (!acquired) {
+                    throw new SQLTransientConnectionException("Database bulkhead is full: " + permits
+                            + " connections in use, waited " + acquireTimeout.toMillis() + " ms");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Interrupted while waiting for the database bulkhead", e);
+            }
+        }
+
+        private Connection releasing(Connection connection) {
+            AtomicBoolean released = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getTargetException();
+                            } finally {
+                                semaphore.release();
+                            }
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    });
+        }
+
+        private void registerMetrics() {
+            if (metricsRegistered) {
+                return;
+            }
+            metricsRegistered = true;
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry != null) {
+                Gauge.builder("crm.db.bulkhead.available", semaphore, Semaphore::availablePermits)
+                        .tag("datasource", name)
+                        .description("Free database bulkhead permits")
+                        .register(registry);
+                Gauge.builder("crm.db.bulkhead.waiting", semaphore, Semaphore::getQueueLength)
+                        .tag("datasource", name)
+                        .description("Threads waiting for a database bulkhead permit")
+                        .register(registry);
+                waitTimer = Timer.builder("crm.db.bulkhead.wait")
+                        .tag("datasource", name)
+                        .description("Time spent waiting for a database bulkhead permit")
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(registry);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.task.Crm.Config;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+class LoadGuardedCaffeineCache extends CaffeineCache {
+    private final AtomicLong generation = new AtomicLong();
+
+    LoadGuardedCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                             boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        // Loading inside compute lets concurrent misses of a key wait for one load instead of each running it.
+        Object[] loaded = new Object[1];
+        Object stored = getNativeCache().asMap().compute(key, (ignored, current) -> {
+            if (current != null) {
+                return current;
+            }
+            long loadGeneration = generation.get();
+            try {
+                loaded[0] = toStoreValue(valueLoader.call());
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            // A load that overlaps an evict may have read the old row, so it is returned but not stored.
+            return generation.get() == loadGeneration ? loaded[0] : null;
+        });
+        return (T) fromStoreValue(stored != null ? stored : loaded[0]);
+    }
+
+    @Override
+    public void evict(Object key) {
+        generation.incrementAndGet();
+        super.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        generation.incrementAndGet();
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        generation.incrementAndGet();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        generation.incrementAndGet();
+        return super.invalidate();
+    }
+}
@@ -0,0 +1,57 @@
+package com.task.Crm.Config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty(name = "crm.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaDataSourceConfig {
+    @Bean
+    public ReadReplicaRoutingDataSource dataSource(DataSourceProperties properties, Environment environment,
+                                                   ObjectProvider<MeterRegistry> meterRegistry,
+                                                   ObjectProvider<DataSourceBulkhead> bulkhead,
+                                                   @Value("${crm.datasource.replica.urls}") List<String> replicaUrls,
+                                                   @Value("${crm.datasource.replica.username:${spring.datasource.username}}") String replicaUsername,
+                                                   @Value("${crm.datasource.replica.password:${spring.datasource.password}}") String replicaPassword,
+                                                   @Value("${crm.datasource.replica.max-lag:5s}") Duration maxLag,
+                                                   @Value("${crm.datasource.replica.lag-check-interval:1s}") Duration lagCheckInterval) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        HikariDataSource primary = createPool("primary", properties.determineUrl(), properties.determineUsername(),
+                properties.determinePassword(), environment, registry);
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            replicas.add(createPool("replica-" + i, replicaUrls.get(i).trim(), replicaUsername, replicaPassword,
+                    environment, registry));
+        }
+        return new ReadReplicaRoutingDataSource(primary, replicas, maxLag, lagCheckInterval, registry,
+                bulkhead.getIfAvailable());
+    }
+
+    private HikariDataSource createPool(String name, String url, String username, String password,
+                                        Environment environment, MeterRegistry registry) {
+        HikariDataSource pool = new HikariDataSource();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName("crm-" + name);
+        pool.setJdbcUrl(url);
+        pool.setUsername(username);
+        pool.setPassword(password);
+        if (registry != null) {
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        }
+        return pool;
+    }
+}
@@ -0,0 +1,157 @@
+package com.task.Crm.Config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReadReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaRoutingDataSource.class);
+    private static final String LAG_QUERY = "select case " +
+            "when not pg_is_in_recovery() or pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 " +
+            "else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end";
+
+    private final HikariDataSource primary;
+    private final DataSource primaryConnections;
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Counter primaryRoutes;
+    private final ScheduledExecutorService lagChecker;
+
+    public ReadReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaPools,
+                                        Duration maxLag, Duration lagCheckInterval, MeterRegistry meterRegistry,
+                                        DataSourceBulkhead bulkhead) {
+        this.primary = primary;
+        this.primaryConnections = bulkhead == null ? primary : bulkhead.wrap(primary);
+        this.maxLag = maxLag;
+        this.replicas = replicaPools.stream()
+                .map(pool -> new Replica(pool, bulkhead == null ? pool : bulkhead.wrap(pool), meterRegistry))
+                .toList();
+        this.primaryRoutes = meterRegistry == null ? null : Counter.builder("crm.datasource.route")
+                .tag("route", primary.getPoolName())
+                .description("Physical connections obtained per datasource route")
+                .register(meterRegistry);
+        setTargetDataSource(new Router());
+
+        checkReplicaLag();
+        this.lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "crm-replica-lag-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagChecker.scheduleWithFixedDelay(this::checkReplicaLag, lagCheckInterval.toMillis(),
+                lagCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        lagChecker.shutdownNow();
+        replicas.forEach(replica -> replica.pool.close());
+        primary.close();
+    }
+
+    private DataSource route() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+                if (replica.healthy) {
+                    if (replica.routes != null) {
+                        replica.routes.increment();
+                    }
+                    return replica.connections;
+                }
+            }
+        }
+        if (primaryRoutes != null) {
+            primaryRoutes.increment();
+        }
+        return primaryConnections;
+    }
+
+    // The lag check goes to the pool directly: waiting behind a full bulkhead would take a healthy replica
+    // out of rotation.
+    private void checkReplicaLag() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+                resultSet.next();
+                replica.lagMillis = Math.round(resultSet.getDouble(1) * 1000);
+                boolean healthy = replica.lagMillis <= maxLag.toMillis();
+                if (replica.healthy != healthy) {
+                    log.warn("Replica {} is {}: lag {} ms, max {} ms", replica.pool.getPoolName(),
+                            healthy ? "back in rotation" : "out of rotation", replica.lagMillis, maxLag.toMillis());
+                }
+                replica.healthy = healthy;
+            } catch (SQLException | RuntimeException e) {
+                if (replica.healthy) {
+                    log.warn("Replica {} is out of rotation: {}", replica.pool.getPoolName(), e.getMessage());
+                }
+                replica.healthy = false;
+                replica.lagMillis = -1;
+            }
+        }
+    }
+
+    private class Router extends AbstractDataSource {
+        @Override
+        public Connection getConnection() throws SQLException {
+            return route().getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return route().getConnection(username, password);
+        }
+    }
+
+    private static class Replica {
+        private final HikariDataSource pool;
+        private final DataSource connections;
+        private final Counter routes;
+        private volatile boolean healthy;
+        private volatile long lagMillis = -1;
+
+        Replica(HikariDataSource pool, DataSource connections, MeterRegistry meterRegistry) {
+            this.pool = pool;
+            this.connections = connections;
+            if (meterRegistry == null) {
+                this.routes = null;
+                return;
+            }
+            this.routes = Counter.builder("crm.datasource.route")
+                    .tag("route", pool.getPoolName())
+                    .description("Physical connections obtained per datasource route")
+                    .register(meterRegistry);
+            Gauge.builder("crm.datasource.replica.lag", this, replica -> replica.lagMillis)
+                    .tag("route", pool.getPoolName())
+                    .baseUnit("milliseconds")
+                    .description("Replication lag of the replica, -1 when it cannot be checked")
+                    .register(meterRegistry);
+            Gauge.builder("crm.datasource.replica.healthy", this, replica -> replica.healthy ? 1 : 0)
+                    .tag("route", pool.getPoolName())
+                    .description("1 when the replica serves read-only transactions")
+                    .register(meterRegistry);
+        }
+    }
+}
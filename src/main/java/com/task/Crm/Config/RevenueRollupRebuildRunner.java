@@ -0,0 +1,30 @@
+package com.task.Crm.Config;
+
+import com.task.Crm.Services.TransactionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "crm.rollup.rebuild", havingValue = "true")
+public class RevenueRollupRebuildRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(RevenueRollupRebuildRunner.class);
+
+    private final TransactionService transactionService;
+
+    @Autowired
+    public RevenueRollupRebuildRunner(TransactionService transactionService) {
+        this.transactionService = transactionService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        transactionService.rebuildRevenueRollup();
+        log.info("Seller daily revenue rollup rebuilt in {} ms", System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,68 @@
+package com.task.Crm.Controllers;
+
+import com.task.Crm.DTO.ImportJobDTO;
+import com.task.Crm.Services.ImportService;
+import com.task.Crm.util.ImportExceptions.ImportErrorResponse;
+import com.task.Crm.util.ImportExceptions.ImportJobNotFoundException;
+import com.task.Crm.util.ImportExceptions.ImportNotStartedException;
+import com.task.Crm.util.ImportTarget;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/import")
+public class ImportController {
+    private final ImportService importService;
+
+    @Autowired
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    @PostMapping("/sellers")
+    public ResponseEntity<ImportJobDTO> importSellers(@RequestParam(value = "path", required = false) String path,
+                                                      InputStream body) {
+        return submit(ImportTarget.SELLERS, path, body);
+    }
+
+    @PostMapping("/transactions")
+    public ResponseEntity<ImportJobDTO> importTransactions(@RequestParam(value = "path", required = false) String path,
+                                                           InputStream body) {
+        return submit(ImportTarget.TRANSACTIONS, path, body);
+    }
+
+    @GetMapping("/status/{id}")
+    public ImportJobDTO getStatus(@PathVariable("id") UUID id) {
+        return importService.getStatus(id);
+    }
+
+    @ExceptionHandler
+    private ResponseEntity<ImportErrorResponse> handleException(ImportJobNotFoundException exception) {
+        ImportErrorResponse response = new ImportErrorResponse(
+                "There is no import job with this id!",
+                System.currentTimeMillis()
+        );
+        return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler
+    private ResponseEntity<ImportErrorResponse> handleException(ImportNotStartedException exception) {
+        ImportErrorResponse response = new ImportErrorResponse(
+                exception.getMessage(),
+                System.currentTimeMillis()
+        );
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    private ResponseEntity<ImportJobDTO> submit(ImportTarget target, String path, InputStream body) {
+        ImportJobDTO job = path == null
+                ? importService.submitUpload(target, body)
+                : importService.submitLocal(target, path);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+}
@@ -1,21 +1,35 @@
 package com.task.Crm.Controllers;
 
+import com.task.Crm.DAO.SellerDAO;
 import com.task.Crm.Models.Seller;
-import com.task.Crm.Models.Transaction;
+import com.task.Crm.Services.SellerLeaderboard;
+import com.task.Crm.Services.SellerOffboardingService;
 import com.task.Crm.Services.SellerService;
+import com.task.Crm.Services.VersionRegistry;
 import com.task.Crm.util.ExceptionUtil;
 import com.task.Crm.util.SellerExceptions.SellerErrorResponse;
 import com.task.Crm.util.SellerExceptions.SellerNotFoundException;
+import com.task.Crm.DTO.LeaderboardDTO;
+import com.task.Crm.DTO.RevenueBucketDTO;
 import com.task.Crm.DTO.SellerDTO;
+import com.task.Crm.DTO.SellerOffboardDTO;
+import com.task.Crm.DTO.SellerOffboardResultDTO;
+import com.task.Crm.DTO.SellerPatchDTO;
+import com.task.Crm.DTO.SellerPageDTO;
 import com.task.Crm.DTO.TransactionDTO;
+import com.task.Crm.DTO.TransactionPageDTO;
+import com.task.Crm.Mappers.SellerMapper;
+import com.task.Crm.Mappers.TransactionMapper;
 import com.task.Crm.util.EmptyResponseToRequest;
+import com.task.Crm.util.IncorrectPageRequest;
 import com.task.Crm.util.IncorrectPeriod;
 import com.task.Crm.util.SellerExceptions.SellerNotCreatedException;
+import com.task.Crm.util.SellerExceptions.SellerNotDeletedException;
 import com.task.Crm.util.SellerExceptions.SellerNotUpdatedException;
+import com.task.Crm.util.TransactionCursor;
 import com.task.Crm.util.TransactionException.TransactionEmptyException;
 import com.task.Crm.util.TransactionException.TransactionErrorResponse;
 import jakarta.validation.Valid;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
@@ -23,7 +37,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -32,53 +48,149 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/sellers")
 public class SellerController {
     private final SellerService sellerService;
-    private final ModelMapper modelMapper;
+    private final SellerLeaderboard sellerLeaderboard;
+    private final SellerOffboardingService sellerOffboardingService;
+    private final VersionRegistry versionRegistry;
+    private final SellerMapper sellerMapper;
+    private final TransactionMapper transactionMapper;
 
     @Autowired
-    public SellerController(SellerService sellerService, ModelMapper modelMapper) {
+    public SellerController(SellerService sellerService, SellerLeaderboard sellerLeaderboard,
+                            SellerOffboardingService sellerOffboardingService, VersionRegistry versionRegistry,
+                            SellerMapper sellerMapper, TransactionMapper transactionMapper) {
         this.sellerService = sellerService;
-        this.modelMapper = modelMapper;
+        this.sellerLeaderboard = sellerLeaderboard;
+        this.sellerOffboardingService = sellerOffboardingService;
+        this.versionRegistry = versionRegistry;
+        this.sellerMapper = sellerMapper;
+        this.transactionMapper = transactionMapper;
     }
 
     @GetMapping("/getSellers")
-    public List<SellerDTO> getSellers() {
-        return sellerService.findAll()
-                .stream().map(this::convertToSellerDTO)
-                .collect(Collectors.toList());
+    public List<SellerDTO> getSellers(WebRequest webRequest) {
+        if(notModified(webRequest, versionRegistry.sellersTag())){
+            return null;
+        }
+        return sellerService.findAll();
+    }
+
+    @GetMapping("/getSellersPage")
+    public SellerPageDTO getSellersPage(@RequestParam(value = "cursor", required = false) Integer cursor,
+                                        @RequestParam(value = "size", required = false) Integer size,
+                                        WebRequest webRequest) {
+        int pageSize = sellerService.getPageSize(size);
+        if(notModified(webRequest, versionRegistry.sellersTag())){
+            return null;
+        }
+        List<SellerDTO> sellers = sellerService.findPage(cursor, pageSize);
+
+        SellerPageDTO page = new SellerPageDTO();
+        page.setSellers(sellers.size() > pageSize ? sellers.subList(0, pageSize) : sellers);
+        if(sellers.size() > pageSize){
+            page.setNextCursor(sellers.get(pageSize - 1).getId());
+        }
+        return page;
     }
 
     @GetMapping("/getSellerById/{id}")
-    public SellerDTO getSellerById(@PathVariable("id") int id) {
-        return convertToSellerDTO(sellerService.findById(id));
+    public SellerDTO getSellerById(@PathVariable("id") int id, WebRequest webRequest) {
+        if(notModified(webRequest, versionRegistry.sellerTag(id))){
+            return null;
+        }
+        return sellerService.findById(id);
     }
 
     @GetMapping("/getSellerByName/{name}")
-    public SellerDTO getSellerByName(@PathVariable("name") String name) {
-        return convertToSellerDTO(sellerService.findByName(name));
+    public SellerDTO getSellerByName(@PathVariable("name") String name, WebRequest webRequest) {
+        if(notModified(webRequest, versionRegistry.sellersTag())){
+            return null;
+        }
+        return sellerService.findByName(name);
     }
 
     @GetMapping("/getTransactionBySellerId/{id}")
-    public List<TransactionDTO> getTransactionsBySellerId(@PathVariable("id") int id) {
-        return sellerService.getTransactionsBySellerId(id)
-                .stream().map(this::convertToTransactionDTO)
+    public List<TransactionDTO> getTransactionsBySellerId(@PathVariable("id") int id, WebRequest webRequest) {
+        if(notModified(webRequest, versionRegistry.sellerTag(id))){
+            return null;
+        }
+        SellerDTO seller = sellerService.findById(id);
+        return sellerService.getTransactionsBySellerId(id).stream()
+                .map(transaction -> transactionMapper.toDTO(transaction, seller))
                 .collect(Collectors.toList());
     }
+
+    @GetMapping("/getTransactionBySellerIdPage/{id}")
+    public TransactionPageDTO getTransactionsPageBySellerId(@PathVariable("id") int id,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "paymentType", required = false) String paymentType,
+            WebRequest webRequest) {
+        int pageSize = sellerService.getPageSize(size);
+        if(notModified(webRequest, versionRegistry.sellerTag(id))){
+            return null;
+        }
+        SellerDTO seller = sellerService.findById(id);
+        List<SellerDAO.TransactionRow> transactions = sellerService.getTransactionsPageBySellerId(id,
+                TransactionCursor.decode(cursor), from, to, paymentType, pageSize);
+
+        TransactionPageDTO page = new TransactionPageDTO();
+        page.setTransactions(transactions.stream()
+                .limit(pageSize)
+                .map(transaction -> transactionMapper.toDTO(transaction, seller))
+                .collect(Collectors.toList()));
+        if(transactions.size() > pageSize){
+            SellerDAO.TransactionRow last = transactions.get(pageSize - 1);
+            page.setNextCursor(new TransactionCursor(last.transactionDate(), last.id()).encode());
+        }
+        return page;
+    }
+
     @GetMapping("/getBestSellerForPeriod/{period}")
     public List<SellerDTO> getBestSellerForPeriod(@PathVariable("period") String period,
             @RequestParam(value = "startDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-            @RequestParam(value = "endDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
-        return sellerService.getBestSellerForPeriod(period, startDate, endDate)
-                .stream().map(this::convertToSellerDTO)
-                .collect(Collectors.toList());
+            @RequestParam(value = "endDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            WebRequest webRequest) {
+        if(notModified(webRequest, versionRegistry.analyticsTag("best"))){
+            return null;
+        }
+        return sellerService.getBestSellerForPeriod(period, startDate, endDate);
     }
 
     @GetMapping("/getSellersBelowAmountForPeriod/{amount}")
     public List<SellerDTO> getSellersBelowAmountForPeriod(@PathVariable double amount,
             @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
-        return sellerService.getSellersBelowAmountForPeriod(amount, startDate, endDate)
-                .stream().map(this::convertToSellerDTO)
-                .collect(Collectors.toList());
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            WebRequest webRequest) {
+        if(notModified(webRequest, versionRegistry.analyticsTag("below"))){
+            return null;
+        }
+        return sellerService.getSellersBelowAmountForPeriod(amount, startDate, endDate);
+    }
+
+    @GetMapping("/getRevenueSeries/{bucket}")
+    public List<RevenueBucketDTO> getRevenueSeries(@PathVariable("bucket") String bucket,
+            @RequestParam(value = "startDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(value = "endDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(value = "sellerIds", required = false) List<Integer> sellerIds,
+            @RequestParam(value = "perSeller", defaultValue = "false") boolean perSeller,
+            @RequestParam(value = "byPaymentType", defaultValue = "false") boolean byPaymentType,
+            WebRequest webRequest) {
+        if(notModified(webRequest, versionRegistry.analyticsTag("series"))){
+            return null;
+        }
+        return sellerService.getRevenueSeries(bucket, startDate, endDate, sellerIds, perSeller, byPaymentType);
+    }
+
+    @GetMapping("/getLeaderboard/{period}")
+    public LeaderboardDTO getLeaderboard(@PathVariable("period") String period,
+                                         @RequestParam(value = "size", required = false) Integer size,
+                                         WebRequest webRequest) {
+        if(notModified(webRequest, versionRegistry.analyticsTag("leaderboard." + LocalDate.now()))){
+            return null;
+        }
+        return sellerLeaderboard.getLeaderboard(period, size);
     }
 
     @PostMapping("/createSeller")
@@ -94,22 +206,27 @@ public class SellerController {
 
     @PatchMapping("/updateSeller/{id}")
     public ResponseEntity<HttpStatus> updateSeller(@PathVariable("id") int id,
-                                                   @RequestBody @Valid SellerDTO sellerDTO,
+                                                   @RequestBody @Valid SellerPatchDTO sellerPatchDTO,
                                                    BindingResult bindingResult) {
         if(bindingResult.hasErrors()) {
             throw new SellerNotUpdatedException(ExceptionUtil.getException(bindingResult).toString());
         }
-        sellerService.update(id, convertToSeller(sellerDTO));
+        sellerService.update(id, sellerPatchDTO);
         return ResponseEntity.ok(HttpStatus.OK);
     }
 
 
     @DeleteMapping("/deleteSeller/{id}")
     public ResponseEntity<HttpStatus> deleteSeller(@PathVariable("id") int id){
-        sellerService.delete(id);
+        sellerOffboardingService.delete(id);
         return ResponseEntity.ok(HttpStatus.OK);
     }
 
+    @PostMapping("/offboard")
+    public SellerOffboardResultDTO offboardSellers(@RequestBody SellerOffboardDTO sellerOffboardDTO) {
+        return sellerOffboardingService.offboard(sellerOffboardDTO.getSellerIds(), sellerOffboardDTO.isArchive());
+    }
+
     @ExceptionHandler
     private ResponseEntity<SellerErrorResponse> handleException(SellerNotFoundException exception) {
         SellerErrorResponse response = new SellerErrorResponse(
@@ -137,6 +254,15 @@ public class SellerController {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler
+    private ResponseEntity<SellerErrorResponse> handleException(SellerNotDeletedException exception) {
+        SellerErrorResponse response = new SellerErrorResponse(
+                exception.getMessage(),
+                System.currentTimeMillis()
+        );
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler
     private ResponseEntity<TransactionErrorResponse> handleException(TransactionEmptyException exception) {
         TransactionErrorResponse response = new TransactionErrorResponse(
@@ -155,23 +281,27 @@ public class SellerController {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
     @ExceptionHandler
-    private ResponseEntity<SellerErrorResponse> handleException(EmptyResponseToRequest exception) {
+    private ResponseEntity<SellerErrorResponse> handleException(IncorrectPageRequest exception) {
         SellerErrorResponse response = new SellerErrorResponse(
                 exception.getMessage(),
                 System.currentTimeMillis()
         );
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
-
-    private Seller convertToSeller(SellerDTO sellerDTO) {
-        return modelMapper.map(sellerDTO, Seller.class);
+    @ExceptionHandler
+    private ResponseEntity<SellerErrorResponse> handleException(EmptyResponseToRequest exception) {
+        SellerErrorResponse response = new SellerErrorResponse(
+                exception.getMessage(),
+                System.currentTimeMillis()
+        );
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
-    private SellerDTO convertToSellerDTO(Seller seller) {
-        return modelMapper.map(seller, SellerDTO.class);
+    private boolean notModified(WebRequest webRequest, String etag) {
+        return etag != null && webRequest.checkNotModified(etag);
     }
 
-    private TransactionDTO convertToTransactionDTO(Transaction transaction) {
-        return modelMapper.map(transaction, TransactionDTO.class);
+    private Seller convertToSeller(SellerDTO sellerDTO) {
+        return sellerMapper.toEntity(sellerDTO);
     }
 }
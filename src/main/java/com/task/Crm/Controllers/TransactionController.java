@@ -1,44 +1,99 @@
 package com.task.Crm.Controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.task.Crm.DTO.IngestStatusDTO;
+import com.task.Crm.DTO.TransactionBatchErrorDTO;
+import com.task.Crm.DTO.TransactionBatchResultDTO;
+import com.task.Crm.DTO.TransactionBatchUpdateResultDTO;
+import com.task.Crm.DTO.TransactionChangePageDTO;
 import com.task.Crm.DTO.TransactionDTO;
+import com.task.Crm.DTO.TransactionPatchDTO;
+import com.task.Crm.Mappers.TransactionMapper;
 import com.task.Crm.Models.Transaction;
 import com.task.Crm.util.ExceptionUtil;
+import com.task.Crm.util.IncorrectPageRequest;
+import com.task.Crm.util.IncorrectPeriod;
 import com.task.Crm.util.TransactionException.*;
+import com.task.Crm.Services.TransactionChangeFeed;
+import com.task.Crm.Services.TransactionIngestQueue;
 import com.task.Crm.Services.TransactionService;
+import com.task.Crm.Services.VersionRegistry;
 import jakarta.validation.Valid;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/transactions")
 public class TransactionController {
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     private final TransactionService transactionService;
-    private final ModelMapper modelMapper;
+    private final TransactionIngestQueue transactionIngestQueue;
+    private final TransactionChangeFeed transactionChangeFeed;
+    private final VersionRegistry versionRegistry;
+    private final TransactionMapper transactionMapper;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public TransactionController(TransactionService transactionService, ModelMapper modelMapper) {
+    public TransactionController(TransactionService transactionService, TransactionIngestQueue transactionIngestQueue,
+                                 TransactionChangeFeed transactionChangeFeed, VersionRegistry versionRegistry,
+                                 TransactionMapper transactionMapper, ObjectMapper objectMapper) {
         this.transactionService = transactionService;
-        this.modelMapper = modelMapper;
+        this.transactionIngestQueue = transactionIngestQueue;
+        this.transactionChangeFeed = transactionChangeFeed;
+        this.versionRegistry = versionRegistry;
+        this.transactionMapper = transactionMapper;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/getTransactions")
     public List<TransactionDTO> getTransactions() {
-        return transactionService.findAll()
-                .stream().map(this::convertToTransactionDTO)
-                .collect(Collectors.toList());
+        return transactionService.findAll();
+    }
+
+    @GetMapping(value = "/exportTransactions", produces = APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody exportTransactions(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "sellerId", required = false) Integer sellerId) {
+        if(from != null && to != null && !from.isBefore(to)){
+            throw new IncorrectPeriod("Start date should be before end date."
+                    + " Start date: " + from + "."
+                    + " End date: " + to);
+        }
+        return outputStream -> {
+            BufferedOutputStream output = new BufferedOutputStream(outputStream);
+            transactionService.exportTransactions(from, to, sellerId,
+                    transaction -> writeLine(output, convertToTransactionDTO(transaction)));
+            output.flush();
+        };
     }
 
     @GetMapping("/getTransaction/{id}")
-    public TransactionDTO getTransactionById(@PathVariable Integer id) {
-        return convertToTransactionDTO(transactionService.findOne(id));
+    public TransactionDTO getTransactionById(@PathVariable Integer id, WebRequest webRequest) {
+        String etag = versionRegistry.transactionTag(id);
+        if(etag != null && webRequest.checkNotModified(etag)){
+            return null;
+        }
+        return transactionService.findOne(id);
     }
 
     @PostMapping("/createTransaction")
@@ -51,22 +106,72 @@ public class TransactionController {
         return ResponseEntity.ok(HttpStatus.OK);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<TransactionBatchResultDTO> createTransactions(@RequestBody List<TransactionDTO> transactionDTOs) {
+        List<Transaction> transactions = transactionDTOs.stream()
+                .map(this::convertToTransaction)
+                .collect(Collectors.toList());
+        Map<Integer, String> errors = transactionService.saveAll(transactions);
+
+        TransactionBatchResultDTO result = new TransactionBatchResultDTO();
+        result.setCreated(transactions.size() - errors.size());
+        result.setRejected(errors.size());
+        result.setErrors(errors.entrySet().stream()
+                .map(error -> new TransactionBatchErrorDTO(error.getKey(), error.getValue()))
+                .collect(Collectors.toList()));
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/enqueueTransaction")
+    public ResponseEntity<IngestStatusDTO> enqueueTransaction(@RequestBody TransactionDTO transactionDTO) {
+        UUID trackingId = transactionIngestQueue.enqueue(convertToTransaction(transactionDTO));
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new IngestStatusDTO(trackingId.toString(), TransactionIngestQueue.Status.ACCEPTED.name(), null));
+    }
+
+    @GetMapping("/ingestStatus/{trackingId}")
+    public IngestStatusDTO getIngestStatus(@PathVariable("trackingId") UUID trackingId) {
+        TransactionIngestQueue.IngestResult result = transactionIngestQueue.getStatus(trackingId);
+        return new IngestStatusDTO(trackingId.toString(), result.status().name(), result.message());
+    }
+
     @PatchMapping("/updateTransaction/{id}")
     public ResponseEntity<HttpStatus> updateTransaction(@PathVariable("id") int id,
-                                                         @RequestBody @Valid TransactionDTO transactionDTO,
+                                                         @RequestBody @Valid TransactionPatchDTO transactionPatchDTO,
                                                          BindingResult bindingResult) {
         if(bindingResult.hasErrors()) {
             throw new TransactionNotUpdateException(ExceptionUtil.getException(bindingResult).toString());
         }
-        transactionService.update(id, convertToTransaction(transactionDTO));
+        transactionService.update(id, transactionPatchDTO);
         return ResponseEntity.ok(HttpStatus.OK);
     }
 
+    @PatchMapping("/batch")
+    public ResponseEntity<TransactionBatchUpdateResultDTO> updateTransactions(
+            @RequestBody List<TransactionPatchDTO> transactionPatchDTOs) {
+        Map<Integer, String> errors = transactionService.updateAll(transactionPatchDTOs);
+
+        TransactionBatchUpdateResultDTO result = new TransactionBatchUpdateResultDTO();
+        result.setUpdated(transactionPatchDTOs.size() - errors.size());
+        result.setRejected(errors.size());
+        result.setErrors(errors.entrySet().stream()
+                .map(error -> new TransactionBatchErrorDTO(error.getKey(), error.getValue()))
+                .collect(Collectors.toList()));
+        return ResponseEntity.ok(result);
+    }
+
     @GetMapping("/getMaxId")
     public ResponseEntity<Integer> getMaxId() {
         return ResponseEntity.ok(transactionService.getMaxId());
     }
 
+    @GetMapping("/getChanges")
+    public DeferredResult<TransactionChangePageDTO> getChanges(@RequestParam(value = "cursor", required = false) String cursor,
+                                                               @RequestParam(value = "size", required = false) Integer size,
+                                                               @RequestParam(value = "wait", required = false) Integer wait) {
+        return transactionChangeFeed.poll(cursor, size, wait);
+    }
+
     @DeleteMapping("/deleteTransaction/{id}")
     public ResponseEntity<HttpStatus> deleteTransaction(@PathVariable Integer id) {
         transactionService.delete(id);
@@ -105,10 +210,50 @@ public class TransactionController {
         );
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
+    @ExceptionHandler
+    private ResponseEntity<TransactionErrorResponse> handleException(TransactionQueueFullException exception) {
+        TransactionErrorResponse response = new TransactionErrorResponse(
+                "The ingest queue is full, retry later",
+                System.currentTimeMillis()
+        );
+        return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    @ExceptionHandler
+    private ResponseEntity<TransactionErrorResponse> handleException(TrackingIdNotFoundException exception) {
+        TransactionErrorResponse response = new TransactionErrorResponse(
+                "There is no enqueued transaction with this tracking id!",
+                System.currentTimeMillis()
+        );
+        return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+    }
+    @ExceptionHandler
+    private ResponseEntity<TransactionErrorResponse> handleException(IncorrectPeriod exception) {
+        TransactionErrorResponse response = new TransactionErrorResponse(
+                exception.getMessage(),
+                System.currentTimeMillis()
+        );
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+    @ExceptionHandler
+    private ResponseEntity<TransactionErrorResponse> handleException(IncorrectPageRequest exception) {
+        TransactionErrorResponse response = new TransactionErrorResponse(
+                exception.getMessage(),
+                System.currentTimeMillis()
+        );
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+    private void writeLine(OutputStream output, TransactionDTO transactionDTO) {
+        try {
+            output.write(objectMapper.writeValueAsBytes(transactionDTO));
+            output.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
     private TransactionDTO convertToTransactionDTO(Transaction transaction) {
-        return modelMapper.map(transaction, TransactionDTO.class);
+        return transactionMapper.toDTO(transaction);
     }
     private Transaction convertToTransaction(TransactionDTO transactionDTO) {
-        return modelMapper.map(transactionDTO, Transaction.class);
+        return transactionMapper.toEntity(transactionDTO);
     }
 }
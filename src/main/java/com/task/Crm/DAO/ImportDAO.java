@@ -0,0 +1,249 @@
+package com.task.Crm.DAO;
+
+import com.task.Crm.DTO.ImportRejectDTO;
+import com.task.Crm.util.CsvReader;
+import com.task.Crm.util.ImportTarget;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.UUID;
+
+@Component
+public class ImportDAO {
+    private static final String DATE_PATTERN = "'^[0-9]{4}-(0[1-9]|1[0-2])-(0[1-9]|[12][0-9]|3[01])" +
+            "([ T]([01][0-9]|2[0-3]):[0-5][0-9](:[0-5][0-9](\\.[0-9]{1,6})?)?)?$'";
+    // The pattern only lets through days that are out of range for their month, like 2023-02-30,
+    // so the exception-catching parser runs for days past the 28th only.
+    private static final String INVALID_DAY = "substr(trim(%1$s), 9, 2) > '28' " +
+            "and try_cast_timestamp(trim(%1$s)) is null";
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private static final String LINES = " line between :first and :last";
+
+    // Staging tables are unlogged tables named after the job rather than temp tables, because validation
+    // and merge commit chunk by chunk and the pool may hand every chunk a different connection.
+    private static final String CREATE_TRANSACTION_STAGING = "create unlogged table %s (" +
+            "line bigint generated always as identity, " +
+            "seller_id text, amount text, payment_type text, transaction_date text, " +
+            "parsed_seller_id integer, parsed_amount integer, parsed_date timestamp, " +
+            "reject_reason text" +
+            ")";
+    private static final String CREATE_SELLER_STAGING = "create unlogged table %s (" +
+            "line bigint generated always as identity, " +
+            "name text, contact_info text, registration_date text, " +
+            "parsed_date timestamp, " +
+            "reject_reason text" +
+            ")";
+
+    private static final List<String> VALIDATE_TRANSACTIONS = List.of(
+            "update %1$s set reject_reason = case " +
+                    "when seller_id is null or trim(seller_id) !~ '^[0-9]{1,9}$' then 'Incorrect seller id' " +
+                    "when amount is null or trim(amount) !~ '^-?[0-9]{1,9}$' then 'Incorrect amount' " +
+                    "when length(payment_type) > 20 then 'Payment type is longer than 20 characters' " +
+                    "when transaction_date is null or trim(transaction_date) !~ " + DATE_PATTERN +
+                    " or " + INVALID_DAY.formatted("transaction_date") + " then 'Incorrect transaction date' " +
+                    "end " +
+                    "where" + LINES,
+            "update %1$s set parsed_seller_id = cast(trim(seller_id) as integer), " +
+                    "parsed_amount = cast(trim(amount) as integer), " +
+                    "parsed_date = cast(trim(transaction_date) as timestamp) " +
+                    "where reject_reason is null and" + LINES,
+            "update %1$s i set reject_reason = 'Seller not found' " +
+                    "where i.reject_reason is null and i." + LINES.trim() + " " +
+                    "and not exists (select 1 from seller s where s.id = i.parsed_seller_id)");
+    private static final List<String> VALIDATE_SELLERS = List.of(
+            "update %1$s set reject_reason = case " +
+                    "when name is null or trim(name) = '' then 'Name is empty' " +
+                    "when length(name) > 100 then 'Name is longer than 100 characters' " +
+                    "when contact_info is null or trim(contact_info) = '' then 'Contact info is empty' " +
+                    "when length(contact_info) > 255 then 'Contact info is longer than 255 characters' " +
+                    "when registration_date is not null and (trim(registration_date) !~ " + DATE_PATTERN +
+                    " or " + INVALID_DAY.formatted("registration_date") + ") then 'Incorrect registration date' " +
+                    "end " +
+                    "where" + LINES,
+            "update %1$s set parsed_date = coalesce(cast(trim(registration_date) as timestamp), " +
+                    "localtimestamp) " +
+                    "where reject_reason is null and" + LINES,
+            "update %1$s i set reject_reason = 'Seller with this name already exists' " +
+                    "where i.reject_reason is null and i." + LINES.trim() + " " +
+                    "and (exists (select 1 from seller s where s.name = i.name) " +
+                    "or exists (select 1 from %1$s d where d.name = i.name and d.line < i.line " +
+                    "and d.reject_reason is null))");
+
+    // Ids are taken from transaction_id_seq in blocks of ID_ALLOCATION_SIZE ending at the sequence value,
+    // the same way Hibernate's pooled optimizer does for Transaction, so both writers can share the sequence.
+    private static final String MERGE_TRANSACTIONS = "with allocated as materialized (" +
+            "select nextval('transaction_id_seq') as hi from generate_series(1, :blocks)" +
+            "), blocks as (" +
+            "select row_number() over (order by hi) - 1 as block, hi from allocated " +
+            "where hi >= " + ID_ALLOCATION_SIZE +
+            "), valid as (" +
+            "select i.*, row_number() over (order by i.line) - 1 as position " +
+            "from %1$s i where i.reject_reason is null and i." + LINES.trim() +
+            "), inserted as (" +
+            "insert into transaction (id, seller_id, amount, payment_type, transaction_date) " +
+            "select cast(b.hi - " + (ID_ALLOCATION_SIZE - 1) + " + mod(v.position, " + ID_ALLOCATION_SIZE + ")" +
+            " as integer), v.parsed_seller_id, v.parsed_amount, v.payment_type, v.parsed_date " +
+            "from valid v join blocks b on b.block = v.position / " + ID_ALLOCATION_SIZE + " " +
+            "returning id, seller_id, amount, payment_type, transaction_date" +
+            "), logged as (" +
+            "insert into transaction_change_log " +
+            "(operation, transaction_id, seller_id, amount, payment_type, transaction_date) " +
+            "select 'INSERT', id, seller_id, amount, payment_type, transaction_date from inserted" +
+            "), rolled_up as (" +
+            "insert into seller_daily_revenue (seller_id, day, amount, transaction_count) " +
+            "select seller_id, cast(transaction_date as date), sum(amount), count(*) from inserted " +
+            "group by seller_id, cast(transaction_date as date) " +
+            "on conflict (seller_id, day) do update " +
+            "set amount = seller_daily_revenue.amount + excluded.amount, " +
+            "transaction_count = seller_daily_revenue.transaction_count + excluded.transaction_count" +
+            ") select count(*) from inserted";
+    private static final String MERGE_SELLERS = "insert into seller (name, contact_info, registration_date) " +
+            "select name, contact_info, parsed_date from %1$s " +
+            "where reject_reason is null and" + LINES + " " +
+            "order by line";
+
+    private final EntityManager em;
+
+    @Autowired
+    public ImportDAO(EntityManager em) {
+        this.em = em;
+    }
+
+    public boolean supportsCopy() {
+        Session session = em.unwrap(Session.class);
+        return session.doReturningWork(connection -> connection.isWrapperFor(PGConnection.class));
+    }
+
+    public void createStaging(ImportTarget target, UUID jobId) {
+        Session session = em.unwrap(Session.class);
+        session.createNativeMutationQuery((target == ImportTarget.TRANSACTIONS
+                        ? CREATE_TRANSACTION_STAGING
+                        : CREATE_SELLER_STAGING).formatted(stagingTable(target, jobId)))
+                .executeUpdate();
+    }
+
+    public void dropStaging(ImportTarget target, UUID jobId) {
+        Session session = em.unwrap(Session.class);
+        session.createNativeMutationQuery("drop table if exists " + stagingTable(target, jobId))
+                .executeUpdate();
+    }
+
+    public long copy(ImportTarget target, UUID jobId, InputStream input, boolean header) {
+        String sql = "copy " + stagingTable(target, jobId) + " (" + String.join(", ", stagingColumns(target)) + ") " +
+                "from stdin with (format csv, header " + header + ")";
+        Session session = em.unwrap(Session.class);
+        return session.doReturningWork(connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, input);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public long insertBatches(ImportTarget target, UUID jobId, CsvReader reader, long rowsBefore, int limit,
+                              int batchSize) {
+        List<String> columns = stagingColumns(target);
+        String sql = "insert into " + stagingTable(target, jobId) + " (" + String.join(", ", columns) + ") " +
+                "values (" + String.join(", ", columns.stream().map(column -> "?").toList()) + ")";
+        Session session = em.unwrap(Session.class);
+        return session.doReturningWork(connection -> {
+            long rows = 0;
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                List<String> fields;
+                while (rows < limit && (fields = reader.next()) != null) {
+                    if (fields.size() != columns.size()) {
+                        throw new IOException("Row " + (rowsBefore + rows + 1) + ": expected " + columns.size()
+                                + " columns, found " + fields.size());
+                    }
+                    for (int i = 0; i < fields.size(); i++) {
+                        statement.setString(i + 1, fields.get(i));
+                    }
+                    statement.addBatch();
+                    if (++rows % batchSize == 0) {
+                        statement.executeBatch();
+                    }
+                }
+                statement.executeBatch();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return rows;
+        });
+    }
+
+    public void validate(ImportTarget target, UUID jobId, long first, long last) {
+        String table = stagingTable(target, jobId);
+        Session session = em.unwrap(Session.class);
+        for (String sql : target == ImportTarget.TRANSACTIONS ? VALIDATE_TRANSACTIONS : VALIDATE_SELLERS) {
+            session.createNativeMutationQuery(sql.formatted(table))
+                    .setParameter("first", first)
+                    .setParameter("last", last)
+                    .executeUpdate();
+        }
+    }
+
+    public long merge(ImportTarget target, UUID jobId, long first, long last) {
+        String table = stagingTable(target, jobId);
+        Session session = em.unwrap(Session.class);
+        if (target == ImportTarget.SELLERS) {
+            return session.createNativeMutationQuery(MERGE_SELLERS.formatted(table))
+                    .setParameter("first", first)
+                    .setParameter("last", last)
+                    .executeUpdate();
+        }
+        long valid = session.createNativeQuery("select count(*) from " + table + " " +
+                        "where reject_reason is null and" + LINES, Long.class)
+                .setParameter("first", first)
+                .setParameter("last", last)
+                .getSingleResult();
+        if (valid == 0) {
+            return 0;
+        }
+        return session.createNativeQuery(MERGE_TRANSACTIONS.formatted(table), Long.class)
+                .setParameter("blocks", valid / ID_ALLOCATION_SIZE + 2)
+                .setParameter("first", first)
+                .setParameter("last", last)
+                .getSingleResult();
+    }
+
+    public long countRejects(ImportTarget target, UUID jobId) {
+        Session session = em.unwrap(Session.class);
+        return session.createNativeQuery("select count(*) from " + stagingTable(target, jobId) + " " +
+                        "where reject_reason is not null", Long.class)
+                .getSingleResult();
+    }
+
+    public List<ImportRejectDTO> getRejects(ImportTarget target, UUID jobId, int limit) {
+        Session session = em.unwrap(Session.class);
+        List<Object[]> rows = session.createNativeQuery("select line, reject_reason " +
+                        "from " + stagingTable(target, jobId) + " " +
+                        "where reject_reason is not null " +
+                        "order by line", Object[].class)
+                .setMaxResults(limit)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new ImportRejectDTO(((Number) row[0]).longValue(), (String) row[1]))
+                .toList();
+    }
+
+    private static String stagingTable(ImportTarget target, UUID jobId) {
+        return (target == ImportTarget.TRANSACTIONS ? "transaction_import_" : "seller_import_")
+                + jobId.toString().replace("-", "");
+    }
+
+    private static List<String> stagingColumns(ImportTarget target) {
+        return target == ImportTarget.TRANSACTIONS
+                ? List.of("seller_id", "amount", "payment_type", "transaction_date")
+                : List.of("name", "contact_info", "registration_date");
+    }
+}
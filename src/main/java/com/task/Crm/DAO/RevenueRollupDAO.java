@@ -0,0 +1,146 @@
+package com.task.Crm.DAO;
+
+import com.task.Crm.Events.TransactionChangedEvent;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class RevenueRollupDAO {
+    private final EntityManager em;
+
+    @Autowired
+    public RevenueRollupDAO(EntityManager em) {
+        this.em = em;
+    }
+
+    private static final String UPSERT_QUERY = "insert into seller_daily_revenue (seller_id, day, amount, transaction_count) " +
+            "values (?, ?, ?, ?) " +
+            "on conflict (seller_id, day) do update " +
+            "set amount = seller_daily_revenue.amount + excluded.amount, " +
+            "transaction_count = seller_daily_revenue.transaction_count + excluded.transaction_count";
+
+    private static final String DELETE_EMPTY_QUERY = "delete from seller_daily_revenue " +
+            "where seller_id = ? and day = ? and transaction_count <= 0";
+
+    public record Delta(int sellerId, LocalDate day, long amount, long count) {}
+
+    private record DeltaKey(int sellerId, LocalDate day) {}
+
+    public static Collection<Delta> ofChanges(Collection<TransactionChangedEvent.Change> changes) {
+        Map<DeltaKey, Delta> deltas = new HashMap<>();
+        for (TransactionChangedEvent.Change change : changes) {
+            if (change.before() != null) {
+                merge(deltas, new Delta(change.before().sellerId(), change.before().transactionDate().toLocalDate(),
+                        -change.before().amount(), -1));
+            }
+            if (change.after() != null) {
+                merge(deltas, new Delta(change.after().sellerId(), change.after().transactionDate().toLocalDate(),
+                        change.after().amount(), 1));
+            }
+        }
+        return deltas.values();
+    }
+
+    private static void merge(Map<DeltaKey, Delta> deltas, Delta delta) {
+        deltas.merge(new DeltaKey(delta.sellerId(), delta.day()), delta,
+                (a, b) -> new Delta(a.sellerId(), a.day(), a.amount() + b.amount(), a.count() + b.count()));
+    }
+
+    public void addAll(Collection<Delta> deltas) {
+        List<Delta> sorted = deltas.stream()
+                .filter(delta -> delta.amount() != 0 || delta.count() != 0)
+                .sorted(Comparator.comparingInt(Delta::sellerId).thenComparing(Delta::day))
+                .toList();
+        if (sorted.isEmpty()) {
+            return;
+        }
+        List<Delta> decreased = sorted.stream()
+                .filter(delta -> delta.count() < 0)
+                .toList();
+        Session session = em.unwrap(Session.class);
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT_QUERY)) {
+                for (Delta delta : sorted) {
+                    statement.setInt(1, delta.sellerId());
+                    statement.setObject(2, delta.day());
+                    statement.setLong(3, delta.amount());
+                    statement.setLong(4, delta.count());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            if (decreased.isEmpty()) {
+                return;
+            }
+            try (PreparedStatement statement = connection.prepareStatement(DELETE_EMPTY_QUERY)) {
+                for (Delta delta : decreased) {
+                    statement.setInt(1, delta.sellerId());
+                    statement.setObject(2, delta.day());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    public void add(int sellerId, LocalDateTime transactionDate, long amount, int count) {
+        Session session = em.unwrap(Session.class);
+        session.createNativeMutationQuery("insert into seller_daily_revenue (seller_id, day, amount, transaction_count) " +
+                        "values (:sellerId, :day, :amount, :count) " +
+                        "on conflict (seller_id, day) do update " +
+                        "set amount = seller_daily_revenue.amount + excluded.amount, " +
+                        "transaction_count = seller_daily_revenue.transaction_count + excluded.transaction_count")
+                .setParameter("sellerId", sellerId)
+                .setParameter("day", transactionDate.toLocalDate())
+                .setParameter("amount", amount)
+                .setParameter("count", (long) count)
+                .executeUpdate();
+
+        if (count < 0) {
+            session.createNativeMutationQuery("delete from seller_daily_revenue " +
+                            "where seller_id = :sellerId and day = :day and transaction_count <= 0")
+                    .setParameter("sellerId", sellerId)
+                    .setParameter("day", transactionDate.toLocalDate())
+                    .executeUpdate();
+        }
+    }
+
+    public List<SellerDAO.SellerRevenue> getRevenueBySeller(LocalDate firstDay, LocalDate lastDay) {
+        Session session = em.unwrap(Session.class);
+        List<Object[]> rows = session.createNativeQuery("select seller_id, sum(amount), sum(transaction_count) " +
+                        "from seller_daily_revenue " +
+                        "where day >= :firstDay and day < :lastDay " +
+                        "group by seller_id", Object[].class)
+                .setParameter("firstDay", firstDay)
+                .setParameter("lastDay", lastDay)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new SellerDAO.SellerRevenue(((Number) row[0]).intValue(), ((Number) row[1]).longValue(),
+                        ((Number) row[2]).longValue()))
+                .toList();
+    }
+
+    public void rebuild() {
+        Session session = em.unwrap(Session.class);
+        session.createNativeMutationQuery("lock table transaction in share mode")
+                .executeUpdate();
+        session.createNativeMutationQuery("delete from seller_daily_revenue")
+                .executeUpdate();
+        session.createNativeMutationQuery("insert into seller_daily_revenue (seller_id, day, amount, transaction_count) " +
+                        "select seller_id, cast(transaction_date as date), sum(amount), count(*) " +
+                        "from transaction " +
+                        "group by seller_id, cast(transaction_date as date)")
+                .executeUpdate();
+    }
+}
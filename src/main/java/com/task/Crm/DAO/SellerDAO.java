@@ -1,110 +1,360 @@
 package com.task.Crm.DAO;
 
+import com.task.Crm.DTO.RevenueBucketDTO;
+import com.task.Crm.DTO.SellerDTO;
+import com.task.Crm.DTO.SellerPatchDTO;
+import com.task.Crm.Events.TransactionChangedEvent;
 import com.task.Crm.Models.Seller;
+import com.task.Crm.util.PeriodRange;
+import com.task.Crm.util.RevenueBucket;
+import com.task.Crm.util.TransactionCursor;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.Query;
 import org.hibernate.Session;
+import org.hibernate.query.MutationQuery;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.query.Query;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.time.LocalDateTime;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 public class SellerDAO {
+    static final String REVENUE_FOR_PERIOD =
+            "select r.seller_id, r.amount from seller_daily_revenue r " +
+            "where r.day >= :firstDay and r.day < :lastDay " +
+            "union all " +
+            "select t.seller_id, t.amount from transaction t " +
+            "where (t.transaction_date >= :startDate and t.transaction_date < :rawBefore) " +
+            "or (t.transaction_date >= :rawAfter and t.transaction_date < :endDate)";
+    static final String BEST_SELLERS_QUERY =
+            "select s.id, s.name, s.contact_info from seller s where s.id in (" +
+            "select seller_id from (" +
+            "select seller_id, rank() over (order by sum(amount) desc) as seller_rank " +
+            "from (" + REVENUE_FOR_PERIOD + ") revenue " +
+            "group by seller_id" +
+            ") ranked where seller_rank = 1)";
+    static final String SELLERS_BELOW_AMOUNT_QUERY =
+            "select s.id, s.name, s.contact_info from seller s left join (" +
+            "select seller_id, sum(amount) as amount from (" + REVENUE_FOR_PERIOD + ") revenue " +
+            "group by seller_id" +
+            ") totals on totals.seller_id = s.id " +
+            "where coalesce(totals.amount, 0) < :amount";
+    static final String PARTIAL_DAY_REVENUE_QUERY =
+            "select t.seller_id, sum(t.amount), count(*) from transaction t " +
+            "where (t.transaction_date >= :startDate and t.transaction_date < :rawBefore) " +
+            "or (t.transaction_date >= :rawAfter and t.transaction_date < :endDate) " +
+            "group by t.seller_id";
+
+    private static final String SELLERS_BY_IDS_QUERY = "select id, name, contact_info from seller " +
+            "where id = any(?) " +
+            "order by id";
+    private static final String ARCHIVE_TRANSACTIONS = ", archived as (" +
+            "insert into transaction_archive (id, seller_id, amount, payment_type, transaction_date) " +
+            "select id, seller_id, amount, payment_type, transaction_date from deleted) ";
+    private static final String ARCHIVE_SELLERS = ", archived as (" +
+            "insert into seller_archive (id, name, contact_info, registration_date) " +
+            "select id, name, contact_info, registration_date from deleted) ";
+
     private final EntityManager em;
 
+    public record TransactionRow(int id, int amount, String paymentType, LocalDateTime transactionDate) {}
+
+    public record SellerRevenue(int sellerId, long amount, long count) {}
+
     @Autowired
     public SellerDAO(EntityManager em) {
         this.em = em;
     }
 
-    public List<Seller> getSellers(){
+    public List<SellerDTO> getSellers(){
         Session session = em.unwrap(Session.class);
-        Set<Seller> sellers = new HashSet<Seller>(session.createQuery("select s from Seller s " +
-                        "left join fetch s.transactionList")
-                        .getResultList());
+        return session.createQuery("select new com.task.Crm.DTO.SellerDTO(s.id, s.name, s.contact_info) " +
+                        "from Seller s " +
+                        "order by s.id", SellerDTO.class)
+                .getResultList();
+    }
+
+    public List<Integer> getSellerIds(){
+        Session session = em.unwrap(Session.class);
+        return session.createQuery("select s.id from Seller s order by s.id", Integer.class)
+                .getResultList();
+    }
 
-        return sellers.stream().toList();
+    public List<SellerDTO> getSellersAfter(int afterId, int limit){
+        Session session = em.unwrap(Session.class);
+        return session.createQuery("select new com.task.Crm.DTO.SellerDTO(s.id, s.name, s.contact_info) " +
+                        "from Seller s " +
+                        "where s.id > :afterId " +
+                        "order by s.id", SellerDTO.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList();
     }
 
-    public List<Seller> getBestSellerForPeriod(String period, LocalDateTime startDate, LocalDateTime endDate){
-        Query query = getQuery(period, startDate, endDate);
+    public List<TransactionRow> getTransactions(int sellerId){
+        Session session = em.unwrap(Session.class);
+        return toTransactionRows(session.createQuery("select t.id, t.amount, t.paymentType, t.transactionDate " +
+                        "from Transaction t " +
+                        "where t.seller.id = :sellerId " +
+                        "order by t.id", Object[].class)
+                .setParameter("sellerId", sellerId)
+                .getResultList());
+    }
 
-        List<Object[]> sellers = query.getResultList();
+    public List<TransactionRow> getTransactions(int sellerId, TransactionCursor after, LocalDateTime from,
+                                                LocalDateTime to, String paymentType, int limit){
+        Session session = em.unwrap(Session.class);
+        StringBuilder hql = new StringBuilder("select t.id, t.amount, t.paymentType, t.transactionDate " +
+                "from Transaction t " +
+                "where t.seller.id = :sellerId");
+        if (after != null) {
+            hql.append(" and (t.transactionDate, t.id) < (:afterDate, :afterId)");
+        }
+        if (from != null) {
+            hql.append(" and t.transactionDate >= :from");
+        }
+        if (to != null) {
+            hql.append(" and t.transactionDate < :to");
+        }
+        if (paymentType != null) {
+            hql.append(" and t.paymentType = :paymentType");
+        }
+        hql.append(" order by t.transactionDate desc, t.id desc");
 
-        return getListWithBestSellers(sellers);
+        Query<Object[]> query = session.createQuery(hql.toString(), Object[].class)
+                .setParameter("sellerId", sellerId)
+                .setMaxResults(limit);
+        if (after != null) {
+            query.setParameter("afterDate", after.transactionDate());
+            query.setParameter("afterId", after.id());
+        }
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        if (paymentType != null) {
+            query.setParameter("paymentType", paymentType);
+        }
+        return toTransactionRows(query.getResultList());
     }
 
-    private Query getQuery(String period, LocalDateTime startDate, LocalDateTime endDate) {
+    private List<TransactionRow> toTransactionRows(List<Object[]> rows) {
+        return rows.stream()
+                .map(row -> new TransactionRow((Integer) row[0], (Integer) row[1], (String) row[2],
+                        (LocalDateTime) row[3]))
+                .toList();
+    }
+
+    public Optional<SellerDTO> getSeller(int id){
         Session session = em.unwrap(Session.class);
-        Query query = null;
-        switch (period) {
-            case "year" -> {
-                query = session.createQuery("select t.seller, sum(t.amount) as sumAmount from Transaction t " +
-                                "where year(t.transactionDate) = :year " +
-                                "group by t.seller " +
-                                "order by sumAmount desc")
-                        .setParameter("year", startDate.getYear());
-            }
-            case "month" -> {
-                query = session.createQuery("select t.seller, sum(t.amount) as sumAmount from Transaction t " +
-                                "where month(t.transactionDate) = :month " +
-                                "and year(t.transactionDate) = :year " +
-                                "group by t.seller " +
-                                "order by sumAmount desc")
-                        .setParameter("month", startDate.getMonthValue())
-                        .setParameter("year", startDate.getYear());
-            }
-            case "day" -> {
-                query = session.createQuery("select t.seller, sum(t.amount) as sumAmount from Transaction t " +
-                                "where date(t.transactionDate) = :date " +
-                                "group by t.seller " +
-                                "order by sumAmount desc")
-                        .setParameter("date", startDate);
-            }
+        return session.createQuery("select new com.task.Crm.DTO.SellerDTO(s.id, s.name, s.contact_info) " +
+                        "from Seller s " +
+                        "where s.id = :id", SellerDTO.class)
+                .setParameter("id", id)
+                .uniqueResultOptional();
+    }
 
-            case "quarter", "specifiedDates" -> {
-                query = session.createQuery("select t.seller, sum(t.amount) as sumAmount from Transaction t " +
-                                "where t.transactionDate >= :startDate and t.transactionDate <= :endDate " +
-                                "group by t.seller " +
-                                "order by sumAmount desc")
-                        .setParameter("startDate", startDate)
-                        .setParameter("endDate", endDate);
+    public Optional<SellerDTO> getSellerByName(String name){
+        Session session = em.unwrap(Session.class);
+        return session.createQuery("select new com.task.Crm.DTO.SellerDTO(s.id, s.name, s.contact_info) " +
+                        "from Seller s " +
+                        "where s.name = :name " +
+                        "order by s.id", SellerDTO.class)
+                .setParameter("name", name)
+                .setMaxResults(1)
+                .uniqueResultOptional();
+    }
+
+    // The ids are bound as one array: an expanded in-list of thousands of ids makes a new statement for every
+    // list length and can exceed the bind parameter limit of the protocol.
+    public List<SellerDTO> getSellersByIds(Collection<Integer> ids){
+        Session session = em.unwrap(Session.class);
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(SELLERS_BY_IDS_QUERY)) {
+                statement.setArray(1, connection.createArrayOf("integer", ids.toArray()));
+                List<SellerDTO> sellers = new ArrayList<>(ids.size());
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        sellers.add(new SellerDTO(resultSet.getInt(1), resultSet.getString(2),
+                                resultSet.getString(3)));
+                    }
+                }
+                return sellers;
             }
+        });
+    }
+
+    public List<SellerDTO> getBestSellerForPeriod(PeriodRange period){
+        return getRevenueQuery(BEST_SELLERS_QUERY, period)
+                .getResultList();
+    }
+
+    public List<SellerDTO> getSellersBelowAmountForPeriod(double amount, PeriodRange period){
+        return getRevenueQuery(SELLERS_BELOW_AMOUNT_QUERY, period)
+                .setParameter("amount", amount)
+                .getResultList();
+    }
+
+    public List<SellerRevenue> getPartialDayRevenue(PeriodRange period){
+        PeriodRange.DaySplit split = period.splitByDays();
+        Session session = em.unwrap(Session.class);
+        List<Object[]> rows = session.createNativeQuery(PARTIAL_DAY_REVENUE_QUERY, Object[].class)
+                .setParameter("startDate", period.start())
+                .setParameter("rawBefore", split.rawBefore())
+                .setParameter("rawAfter", split.rawAfter())
+                .setParameter("endDate", period.end())
+                .getResultList();
+        return rows.stream()
+                .map(row -> new SellerRevenue(((Number) row[0]).intValue(), ((Number) row[1]).longValue(),
+                        ((Number) row[2]).longValue()))
+                .toList();
+    }
+
+    public List<RevenueBucketDTO> getRevenueSeries(RevenueBucket bucket, PeriodRange period,
+                                                   Collection<Integer> sellerIds, boolean perSeller,
+                                                   boolean byPaymentType){
+        StringBuilder select = new StringBuilder("select date_trunc(:bucket, t.transaction_date) as bucket_start");
+        StringBuilder groupBy = new StringBuilder(" group by bucket_start");
+        if (perSeller) {
+            select.append(", t.seller_id");
+            groupBy.append(", t.seller_id");
+        }
+        if (byPaymentType) {
+            select.append(", t.payment_type");
+            groupBy.append(", t.payment_type");
+        }
+        select.append(", sum(t.amount) as amount, count(*) as transaction_count " +
+                "from transaction t " +
+                "where t.transaction_date >= :startDate and t.transaction_date < :endDate");
+        if (sellerIds != null && !sellerIds.isEmpty()) {
+            select.append(" and t.seller_id in (:sellerIds)");
+        }
+        select.append(groupBy).append(" order by bucket_start");
+        if (perSeller) {
+            select.append(", t.seller_id");
+        }
+        if (byPaymentType) {
+            select.append(", t.payment_type");
+        }
+
+        Session session = em.unwrap(Session.class);
+        NativeQuery<Object[]> query = session.createNativeQuery(select.toString(), Object[].class)
+                .addScalar("bucket_start", LocalDateTime.class);
+        if (perSeller) {
+            query.addScalar("seller_id", Integer.class);
         }
-        return query;
+        if (byPaymentType) {
+            query.addScalar("payment_type", String.class);
+        }
+        query.addScalar("amount", Long.class)
+                .addScalar("transaction_count", Long.class)
+                .setParameter("bucket", bucket.getField())
+                .setParameter("startDate", period.start())
+                .setParameter("endDate", period.end());
+        if (sellerIds != null && !sellerIds.isEmpty()) {
+            query.setParameter("sellerIds", sellerIds);
+        }
+        return query.getResultList().stream()
+                .map(row -> {
+                    int column = 1;
+                    Integer sellerId = perSeller ? (Integer) row[column++] : null;
+                    String paymentType = byPaymentType ? (String) row[column++] : null;
+                    return new RevenueBucketDTO((LocalDateTime) row[0], sellerId, paymentType,
+                            (Long) row[column], (Long) row[column + 1]);
+                })
+                .toList();
     }
 
-    private List<Seller> getListWithBestSellers(List<Object[]> sellers) {
-        List<Seller> result = new ArrayList<>();
-        if (sellers.isEmpty()) {
-            return result;
+    public int updateSeller(int id, SellerPatchDTO patch){
+        StringBuilder sql = new StringBuilder("update seller set ");
+        if (patch.getName() != null) {
+            sql.append("name = :name");
         }
-        Long maxAmount = (Long) sellers.getFirst()[1];
-        for(Object[] row : sellers){
-            Long sumAmount = (Long) row[1];
-            Seller seller = (Seller) row[0];
-            if(Objects.equals(sumAmount, maxAmount)){
-                result.add(seller);
-            }
+        if (patch.getContact_info() != null) {
+            sql.append(patch.getName() != null ? ", " : "").append("contact_info = :contactInfo");
+        }
+        sql.append(" where id = :id");
+
+        Session session = em.unwrap(Session.class);
+        MutationQuery query = session.createNativeMutationQuery(sql.toString())
+                .setParameter("id", id);
+        if (patch.getName() != null) {
+            query.setParameter("name", patch.getName());
         }
-        return result;
+        if (patch.getContact_info() != null) {
+            query.setParameter("contactInfo", patch.getContact_info());
+        }
+        return query.executeUpdate();
+    }
+
+    public List<TransactionChangedEvent.Snapshot> deleteTransactionsOfSellers(Collection<Integer> sellerIds, int limit,
+                                                                      boolean archive){
+        String sql = "with locked as (" +
+                "select id from seller where id = any(?) order by id for update), " +
+                "doomed as (" +
+                "select t.id from transaction t where t.seller_id in (select id from locked) limit ? for update), " +
+                "deleted as (" +
+                "delete from transaction t using doomed where t.id = doomed.id " +
+                "returning t.id, t.seller_id, t.amount, t.payment_type, t.transaction_date) " +
+                (archive ? ARCHIVE_TRANSACTIONS : "") +
+                "select id, seller_id, amount, payment_type, transaction_date from deleted";
+        Session session = em.unwrap(Session.class);
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setArray(1, connection.createArrayOf("integer", sellerIds.toArray()));
+                statement.setInt(2, limit);
+                List<TransactionChangedEvent.Snapshot> deleted = new ArrayList<>();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        deleted.add(new TransactionChangedEvent.Snapshot(resultSet.getInt(1), resultSet.getInt(2),
+                                resultSet.getObject(5, LocalDateTime.class), resultSet.getInt(3),
+                                resultSet.getString(4)));
+                    }
+                }
+                return deleted;
+            }
+        });
+    }
+
+    public List<Integer> deleteSellers(Collection<Integer> sellerIds, boolean archive){
+        String sql = "with deleted as (" +
+                "delete from seller where id = any(?) " +
+                "returning id, name, contact_info, registration_date) " +
+                (archive ? ARCHIVE_SELLERS : "") +
+                "select id from deleted order by id";
+        Session session = em.unwrap(Session.class);
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setArray(1, connection.createArrayOf("integer", sellerIds.toArray()));
+                List<Integer> deleted = new ArrayList<>();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        deleted.add(resultSet.getInt(1));
+                    }
+                }
+                return deleted;
+            }
+        });
     }
 
-    public List<Seller> getSellersBelowAmountForPeriod(double amount, LocalDateTime startDate, LocalDateTime endDate){
+    private NativeQuery<SellerDTO> getRevenueQuery(String sql, PeriodRange period) {
+        PeriodRange.DaySplit split = period.splitByDays();
         Session session = em.unwrap(Session.class);
-        Set<Seller> sellers = new HashSet<>(
-                session.createQuery("select s from Seller s " +
-                                "join s.transactionList t " +
-                                "where t.transactionDate between :startDate and :endDate " +
-                                "group by s.id " +
-                                "having sum (t.amount) < :amount", Seller.class)
-                        .setParameter("startDate", startDate)
-                        .setParameter("endDate", endDate)
-                        .setParameter("amount", amount)
-                        .getResultList());
-
-        return sellers.stream().toList();
+        return session.createNativeQuery(sql, Seller.SELLER_DTO_MAPPING, SellerDTO.class)
+                .setParameter("firstDay", split.firstDay())
+                .setParameter("lastDay", split.lastDay())
+                .setParameter("startDate", period.start())
+                .setParameter("rawBefore", split.rawBefore())
+                .setParameter("rawAfter", split.rawAfter())
+                .setParameter("endDate", period.end());
     }
 }
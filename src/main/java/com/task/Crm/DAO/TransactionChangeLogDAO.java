@@ -0,0 +1,85 @@
+package com.task.Crm.DAO;
+
+import com.task.Crm.DTO.TransactionChangeDTO;
+import com.task.Crm.Events.TransactionChangedEvent;
+import com.task.Crm.util.ChangeFeedCursor;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Component
+public class TransactionChangeLogDAO {
+    private static final String INSERT_QUERY = "insert into transaction_change_log " +
+            "(operation, transaction_id, seller_id, amount, payment_type, transaction_date) " +
+            "values (?, ?, ?, ?, ?, ?)";
+    static final String CHANGES_QUERY = "select cast(c.xid as text) as xid, c.id, c.operation, c.transaction_id, " +
+            "c.seller_id, c.amount, c.payment_type, c.transaction_date, c.changed_at " +
+            "from transaction_change_log c " +
+            "where (c.xid, c.id) > (cast(cast(:xid as text) as xid8), :id) " +
+            "and c.xid < pg_snapshot_xmin(pg_current_snapshot()) " +
+            "order by c.xid, c.id " +
+            "limit :limit";
+
+    private final EntityManager em;
+
+    public record LoggedChange(ChangeFeedCursor cursor, TransactionChangeDTO change) {}
+
+    @Autowired
+    public TransactionChangeLogDAO(EntityManager em) {
+        this.em = em;
+    }
+
+    public void append(Collection<TransactionChangedEvent.Change> changes) {
+        Session session = em.unwrap(Session.class);
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_QUERY)) {
+                for (TransactionChangedEvent.Change change : changes) {
+                    String operation = change.before() == null ? "INSERT" : change.after() == null ? "DELETE" : "UPDATE";
+                    TransactionChangedEvent.Snapshot snapshot = change.after() == null ? change.before() : change.after();
+                    statement.setString(1, operation);
+                    statement.setInt(2, snapshot.id());
+                    statement.setInt(3, snapshot.sellerId());
+                    statement.setInt(4, snapshot.amount());
+                    if (snapshot.paymentType() == null) {
+                        statement.setNull(5, Types.VARCHAR);
+                    } else {
+                        statement.setString(5, snapshot.paymentType());
+                    }
+                    statement.setObject(6, snapshot.transactionDate());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    public List<LoggedChange> getChanges(ChangeFeedCursor after, int limit) {
+        Session session = em.unwrap(Session.class);
+        List<Object[]> rows = session.createNativeQuery(CHANGES_QUERY, Object[].class)
+                .addScalar("xid", String.class)
+                .addScalar("id", Long.class)
+                .addScalar("operation", String.class)
+                .addScalar("transaction_id", Integer.class)
+                .addScalar("seller_id", Integer.class)
+                .addScalar("amount", Integer.class)
+                .addScalar("payment_type", String.class)
+                .addScalar("transaction_date", LocalDateTime.class)
+                .addScalar("changed_at", LocalDateTime.class)
+                .setParameter("xid", after.xid())
+                .setParameter("id", after.id())
+                .setParameter("limit", limit)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new LoggedChange(new ChangeFeedCursor(Long.parseLong((String) row[0]), (Long) row[1]),
+                        new TransactionChangeDTO((String) row[2], (Integer) row[3], (Integer) row[4],
+                                (Integer) row[5], (String) row[6], (LocalDateTime) row[7], (LocalDateTime) row[8])))
+                .toList();
+    }
+}
@@ -0,0 +1,251 @@
+package com.task.Crm.DAO;
+
+import com.task.Crm.DTO.TransactionDTO;
+import com.task.Crm.DTO.TransactionPatchDTO;
+import com.task.Crm.Events.TransactionChangedEvent;
+import com.task.Crm.Models.Transaction;
+import jakarta.persistence.EntityManager;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+
+@Component
+public class TransactionDAO {
+    private static final String TRANSACTION_DTO_SELECT =
+            "select new com.task.Crm.DTO.TransactionDTO(t.amount, t.paymentType, t.transactionDate, " +
+            "s.id, s.name, s.contact_info) " +
+            "from Transaction t join t.seller s ";
+
+    private static final String PATCH_RESULT_SELECT =
+            "select previous.id, previous.seller_id, previous.amount, previous.payment_type, " +
+            "previous.transaction_date, " +
+            "patched.id, patched.seller_id, patched.amount, patched.payment_type, patched.transaction_date ";
+    private static final String UPDATE_RETURNING =
+            " returning t.id, t.seller_id, t.amount, t.payment_type, t.transaction_date) ";
+    static final String BATCH_UPDATE_QUERY = "with patch as (" +
+            "select * from unnest(cast(? as integer[]), cast(? as integer[]), cast(? as integer[]), " +
+            "cast(? as varchar[])) with ordinality as p(id, seller_id, amount, payment_type, ordinal)), " +
+            "previous as (" +
+            "select t.id, t.seller_id, t.amount, t.payment_type, t.transaction_date from transaction t " +
+            "where t.id in (select id from patch) " +
+            "order by t.id for update), " +
+            "patched as (" +
+            "update transaction t set seller_id = coalesce(p.seller_id, t.seller_id), " +
+            "amount = coalesce(p.amount, t.amount), " +
+            "payment_type = coalesce(p.payment_type, t.payment_type) " +
+            "from patch p join previous on previous.id = p.id " +
+            "where t.id = previous.id " +
+            "and (p.seller_id is null or exists (select 1 from seller s where s.id = p.seller_id))" +
+            UPDATE_RETURNING +
+            PATCH_RESULT_SELECT +
+            "from patch p left join previous on previous.id = p.id left join patched on patched.id = p.id " +
+            "order by p.ordinal";
+
+    private final EntityManager em;
+    private final int fetchSize;
+    private final int batchSize;
+
+    @Autowired
+    public TransactionDAO(EntityManager em, @Value("${crm.export.fetch-size:1000}") int fetchSize,
+                          @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.em = em;
+        this.fetchSize = fetchSize;
+        this.batchSize = batchSize;
+    }
+
+    public List<TransactionDTO> getTransactions() {
+        Session session = em.unwrap(Session.class);
+        return session.createQuery(TRANSACTION_DTO_SELECT +
+                        "order by t.id", TransactionDTO.class)
+                .getResultList();
+    }
+
+    public Optional<TransactionDTO> getTransaction(int id) {
+        Session session = em.unwrap(Session.class);
+        return session.createQuery(TRANSACTION_DTO_SELECT +
+                        "where t.id = :id", TransactionDTO.class)
+                .setParameter("id", id)
+                .uniqueResultOptional();
+    }
+
+    public interface RowConsumer {
+        void accept(int sellerId, LocalDateTime transactionDate, int amount);
+    }
+
+    public void takeSnapshot() {
+        Session session = em.unwrap(Session.class);
+        session.createNativeQuery("select 1", Integer.class)
+                .getSingleResult();
+    }
+
+    public void scanRowsByDate(RowConsumer consumer) {
+        Session session = em.unwrap(Session.class);
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("select seller_id, transaction_date, amount " +
+                    "from transaction order by transaction_date")) {
+                statement.setFetchSize(fetchSize);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        consumer.accept(resultSet.getInt(1), resultSet.getObject(2, LocalDateTime.class),
+                                resultSet.getInt(3));
+                    }
+                }
+            }
+        });
+    }
+
+    public record PatchResult(TransactionChangedEvent.Snapshot before, TransactionChangedEvent.Snapshot after) {}
+
+    public PatchResult update(int id, TransactionPatchDTO patch) {
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(id);
+        StringBuilder sql = new StringBuilder("with previous as (" +
+                "select id, seller_id, amount, payment_type, transaction_date from transaction " +
+                "where id = ? for update), " +
+                "patched as (" +
+                "update transaction t set ");
+        StringJoiner assignments = new StringJoiner(", ");
+        if (patch.getSellerId() != null) {
+            assignments.add("seller_id = ?");
+            parameters.add(patch.getSellerId());
+        }
+        if (patch.getAmount() != null) {
+            assignments.add("amount = ?");
+            parameters.add(patch.getAmount());
+        }
+        if (patch.getPaymentType() != null) {
+            assignments.add("payment_type = ?");
+            parameters.add(patch.getPaymentType());
+        }
+        sql.append(assignments).append(" from previous where t.id = previous.id");
+        if (patch.getSellerId() != null) {
+            sql.append(" and exists (select 1 from seller s where s.id = ?)");
+            parameters.add(patch.getSellerId());
+        }
+        sql.append(UPDATE_RETURNING)
+                .append(PATCH_RESULT_SELECT)
+                .append("from previous left join patched on patched.id = previous.id");
+
+        Session session = em.unwrap(Session.class);
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                for (int i = 0; i < parameters.size(); i++) {
+                    statement.setObject(i + 1, parameters.get(i));
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return resultSet.next()
+                            ? new PatchResult(readSnapshot(resultSet, 1), readSnapshot(resultSet, 6))
+                            : new PatchResult(null, null);
+                }
+            }
+        });
+    }
+
+    public List<PatchResult> updateAll(List<TransactionPatchDTO> patches) {
+        Integer[] ids = new Integer[patches.size()];
+        Integer[] sellerIds = new Integer[patches.size()];
+        Integer[] amounts = new Integer[patches.size()];
+        String[] paymentTypes = new String[patches.size()];
+        for (int i = 0; i < patches.size(); i++) {
+            TransactionPatchDTO patch = patches.get(i);
+            ids[i] = patch.getId();
+            sellerIds[i] = patch.getSellerId();
+            amounts[i] = patch.getAmount();
+            paymentTypes[i] = patch.getPaymentType();
+        }
+
+        Session session = em.unwrap(Session.class);
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(BATCH_UPDATE_QUERY)) {
+                statement.setArray(1, connection.createArrayOf("integer", ids));
+                statement.setArray(2, connection.createArrayOf("integer", sellerIds));
+                statement.setArray(3, connection.createArrayOf("integer", amounts));
+                statement.setArray(4, connection.createArrayOf("varchar", paymentTypes));
+                List<PatchResult> results = new ArrayList<>(patches.size());
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        results.add(new PatchResult(readSnapshot(resultSet, 1), readSnapshot(resultSet, 6)));
+                    }
+                }
+                return results;
+            }
+        });
+    }
+
+    private static TransactionChangedEvent.Snapshot readSnapshot(ResultSet resultSet, int column) throws SQLException {
+        int id = resultSet.getInt(column);
+        if (resultSet.wasNull()) {
+            return null;
+        }
+        return new TransactionChangedEvent.Snapshot(id, resultSet.getInt(column + 1),
+                resultSet.getObject(column + 4, LocalDateTime.class), resultSet.getInt(column + 2),
+                resultSet.getString(column + 3));
+    }
+
+    public void insertAll(List<Transaction> transactions) {
+        for (int i = 0; i < transactions.size(); i++) {
+            em.persist(transactions.get(i));
+            if ((i + 1) % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    public void streamTransactions(LocalDateTime from, LocalDateTime to, Integer sellerId,
+                                   Consumer<Transaction> consumer) {
+        Session session = em.unwrap(Session.class);
+        StringBuilder hql = new StringBuilder("select t from Transaction t " +
+                "join fetch t.seller " +
+                "where 1 = 1");
+        if (from != null) {
+            hql.append(" and t.transactionDate >= :from");
+        }
+        if (to != null) {
+            hql.append(" and t.transactionDate < :to");
+        }
+        if (sellerId != null) {
+            hql.append(" and t.seller.id = :sellerId");
+        }
+        hql.append(" order by t.id");
+
+        Query<Transaction> query = session.createQuery(hql.toString(), Transaction.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true);
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        if (sellerId != null) {
+            query.setParameter("sellerId", sellerId);
+        }
+
+        try (ScrollableResults<Transaction> results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            int count = 0;
+            while (results.next()) {
+                consumer.accept(results.get());
+                if (++count % fetchSize == 0) {
+                    session.clear();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.task.Crm.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+public class ImportJobDTO {
+    private String id;
+
+    private String target;
+
+    private String status;
+
+    private String method;
+
+    private long bytesTotal;
+
+    private long bytesRead;
+
+    private long rowsRead;
+
+    private long rowsImported;
+
+    private long rowsRejected;
+
+    private List<ImportRejectDTO> rejects;
+
+    private String error;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,17 @@
+package com.task.Crm.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ImportRejectDTO {
+    private long row;
+
+    private String reason;
+
+    public ImportRejectDTO(long row, String reason) {
+        this.row = row;
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,20 @@
+package com.task.Crm.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class IngestStatusDTO {
+    private String trackingId;
+
+    private String status;
+
+    private String message;
+
+    public IngestStatusDTO(String trackingId, String status, String message) {
+        this.trackingId = trackingId;
+        this.status = status;
+        this.message = message;
+    }
+}
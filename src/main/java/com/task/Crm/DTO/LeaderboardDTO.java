@@ -0,0 +1,19 @@
+package com.task.Crm.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+public class LeaderboardDTO {
+    private String period;
+
+    private LocalDateTime periodStart;
+
+    private LocalDateTime periodEnd;
+
+    private List<LeaderboardEntryDTO> sellers;
+}
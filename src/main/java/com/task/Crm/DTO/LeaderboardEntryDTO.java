@@ -0,0 +1,25 @@
+package com.task.Crm.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class LeaderboardEntryDTO {
+    private int rank;
+
+    private SellerDTO seller;
+
+    private long amount;
+
+    private long transactionCount;
+
+    public LeaderboardEntryDTO() {}
+
+    public LeaderboardEntryDTO(int rank, SellerDTO seller, long amount, long transactionCount) {
+        this.rank = rank;
+        this.seller = seller;
+        this.amount = amount;
+        this.transactionCount = transactionCount;
+    }
+}
@@ -0,0 +1,31 @@
+package com.task.Crm.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class RevenueBucketDTO {
+    private LocalDateTime bucketStart;
+
+    private Integer sellerId;
+
+    private String paymentType;
+
+    private long amount;
+
+    private long transactionCount;
+
+    public RevenueBucketDTO() {}
+
+    public RevenueBucketDTO(LocalDateTime bucketStart, Integer sellerId, String paymentType,
+                            long amount, long transactionCount) {
+        this.bucketStart = bucketStart;
+        this.sellerId = sellerId;
+        this.paymentType = paymentType;
+        this.amount = amount;
+        this.transactionCount = transactionCount;
+    }
+}
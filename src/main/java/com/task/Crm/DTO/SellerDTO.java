@@ -15,4 +15,12 @@ public class SellerDTO {
     private String name;
 
     private String contact_info;
+
+    public SellerDTO() {}
+
+    public SellerDTO(int id, String name, String contact_info) {
+        this.id = id;
+        this.name = name;
+        this.contact_info = contact_info;
+    }
 }
@@ -0,0 +1,21 @@
+package com.task.Crm.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class SellerOffboardDTO {
+    private List<Integer> sellerIds;
+
+    private boolean archive;
+
+    public SellerOffboardDTO() {}
+
+    public SellerOffboardDTO(List<Integer> sellerIds, boolean archive) {
+        this.sellerIds = sellerIds;
+        this.archive = archive;
+    }
+}
@@ -0,0 +1,27 @@
+package com.task.Crm.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class SellerOffboardResultDTO {
+    private int sellers;
+
+    private long transactions;
+
+    private boolean archived;
+
+    private List<Integer> notFound;
+
+    public SellerOffboardResultDTO() {}
+
+    public SellerOffboardResultDTO(int sellers, long transactions, boolean archived, List<Integer> notFound) {
+        this.sellers = sellers;
+        this.transactions = transactions;
+        this.archived = archived;
+        this.notFound = notFound;
+    }
+}
@@ -0,0 +1,14 @@
+package com.task.Crm.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class SellerPageDTO {
+    private List<SellerDTO> sellers;
+
+    private Integer nextCursor;
+}
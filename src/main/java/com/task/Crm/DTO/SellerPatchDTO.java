@@ -0,0 +1,28 @@
+package com.task.Crm.DTO;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class SellerPatchDTO {
+    @Size(min = 1, max = 100, message = "Name should be between 1 and 100 characters")
+    private String name;
+
+    @Size(min = 1, max = 255, message = "Contact info should be between 1 and 255 characters")
+    private String contact_info;
+
+    public SellerPatchDTO() {}
+
+    public SellerPatchDTO(String name, String contact_info) {
+        this.name = name;
+        this.contact_info = contact_info;
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return name == null && contact_info == null;
+    }
+}
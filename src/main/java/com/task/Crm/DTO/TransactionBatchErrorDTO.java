@@ -0,0 +1,17 @@
+package com.task.Crm.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class TransactionBatchErrorDTO {
+    private int index;
+
+    private String message;
+
+    public TransactionBatchErrorDTO(int index, String message) {
+        this.index = index;
+        this.message = message;
+    }
+}
@@ -0,0 +1,16 @@
+package com.task.Crm.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class TransactionBatchUpdateResultDTO {
+    private int updated;
+
+    private int rejected;
+
+    private List<TransactionBatchErrorDTO> errors;
+}
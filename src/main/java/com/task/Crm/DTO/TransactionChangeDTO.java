@@ -0,0 +1,37 @@
+package com.task.Crm.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class TransactionChangeDTO {
+    private String operation;
+
+    private int transactionId;
+
+    private int sellerId;
+
+    private int amount;
+
+    private String paymentType;
+
+    private LocalDateTime transactionDate;
+
+    private LocalDateTime changedAt;
+
+    public TransactionChangeDTO() {}
+
+    public TransactionChangeDTO(String operation, int transactionId, int sellerId, int amount, String paymentType,
+                                LocalDateTime transactionDate, LocalDateTime changedAt) {
+        this.operation = operation;
+        this.transactionId = transactionId;
+        this.sellerId = sellerId;
+        this.amount = amount;
+        this.paymentType = paymentType;
+        this.transactionDate = transactionDate;
+        this.changedAt = changedAt;
+    }
+}
@@ -0,0 +1,14 @@
+package com.task.Crm.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class TransactionChangePageDTO {
+    private List<TransactionChangeDTO> changes;
+
+    private String nextCursor;
+}
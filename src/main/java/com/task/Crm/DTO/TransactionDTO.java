@@ -18,4 +18,14 @@ public class TransactionDTO {
     private LocalDateTime transactionDate;
 
     private SellerDTO seller;
+
+    public TransactionDTO() {}
+
+    public TransactionDTO(int amount, String paymentType, LocalDateTime transactionDate,
+                          int sellerId, String sellerName, String sellerContactInfo) {
+        this.amount = amount;
+        this.paymentType = paymentType;
+        this.transactionDate = transactionDate;
+        this.seller = new SellerDTO(sellerId, sellerName, sellerContactInfo);
+    }
 }
@@ -0,0 +1,14 @@
+package com.task.Crm.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class TransactionPageDTO {
+    private List<TransactionDTO> transactions;
+
+    private String nextCursor;
+}
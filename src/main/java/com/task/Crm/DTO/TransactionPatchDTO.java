@@ -0,0 +1,38 @@
+package com.task.Crm.DTO;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class TransactionPatchDTO {
+    private Integer id;
+
+    private Integer amount;
+
+    @Size(max = 20, message = "Payment type should be at most 20 characters")
+    private String paymentType;
+
+    private SellerDTO seller;
+
+    public TransactionPatchDTO() {}
+
+    public TransactionPatchDTO(Integer id, Integer amount, String paymentType, SellerDTO seller) {
+        this.id = id;
+        this.amount = amount;
+        this.paymentType = paymentType;
+        this.seller = seller;
+    }
+
+    @JsonIgnore
+    public Integer getSellerId() {
+        return seller == null ? null : seller.getId();
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return amount == null && paymentType == null && seller == null;
+    }
+}
@@ -0,0 +1,5 @@
+package com.task.Crm.Events;
+
+import com.task.Crm.util.ImportTarget;
+
+public record ImportCompletedEvent(ImportTarget target, long imported) {}
@@ -0,0 +1,85 @@
+package com.task.Crm.Events;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Orders committed changes against reloads of an in-memory view. A writer holds the shared lock from
+ * beforeCommit to afterCompletion, so once {@link #pin} has the exclusive lock every change is either
+ * visible to the reload snapshot and already applied, or committed later and buffered for {@link #replay}.
+ */
+public class ReloadBarrier {
+    private final ReentrantReadWriteLock commits = new ReentrantReadWriteLock();
+    private List<Runnable> pending;
+
+    public void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean locked;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                commits.readLock().lock();
+                locked = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                apply(change);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (locked) {
+                    locked = false;
+                    commits.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs the first statement of the reload transaction while no commit is in flight and starts buffering
+     * changes. The transaction should be repeatable read so that later statements see the same snapshot.
+     */
+    public void pin(Runnable snapshot) {
+        commits.writeLock().lock();
+        try {
+            snapshot.run();
+            synchronized (this) {
+                pending = new ArrayList<>();
+            }
+        } finally {
+            commits.writeLock().unlock();
+        }
+    }
+
+    public synchronized void replay(Runnable swap) {
+        swap.run();
+        cancel();
+    }
+
+    public synchronized void cancel() {
+        if (pending == null) {
+            return;
+        }
+        List<Runnable> changes = pending;
+        pending = null;
+        changes.forEach(Runnable::run);
+    }
+
+    private synchronized void apply(Runnable change) {
+        if (pending != null) {
+            pending.add(change);
+        } else {
+            change.run();
+        }
+    }
+}
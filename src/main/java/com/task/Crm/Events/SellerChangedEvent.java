@@ -0,0 +1,16 @@
+package com.task.Crm.Events;
+
+public record SellerChangedEvent(int sellerId, Type type) {
+    public enum Type {
+        CREATED,
+        DELETED
+    }
+
+    public static SellerChangedEvent created(int sellerId) {
+        return new SellerChangedEvent(sellerId, Type.CREATED);
+    }
+
+    public static SellerChangedEvent deleted(int sellerId) {
+        return new SellerChangedEvent(sellerId, Type.DELETED);
+    }
+}
@@ -0,0 +1,31 @@
+package com.task.Crm.Events;
+
+import com.task.Crm.Models.Transaction;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record TransactionChangedEvent(List<Change> changes) {
+    public record Snapshot(int id, int sellerId, LocalDateTime transactionDate, int amount, String paymentType) {
+        public static Snapshot of(Transaction transaction) {
+            return new Snapshot(transaction.getId(), transaction.getSeller().getId(),
+                    transaction.getTransactionDate(), transaction.getAmount(), transaction.getPaymentType());
+        }
+    }
+
+    public record Change(Snapshot before, Snapshot after) {}
+
+    public static TransactionChangedEvent created(List<Transaction> transactions) {
+        return new TransactionChangedEvent(transactions.stream()
+                .map(transaction -> new Change(null, Snapshot.of(transaction)))
+                .toList());
+    }
+
+    public static TransactionChangedEvent updated(Snapshot before, Snapshot after) {
+        return new TransactionChangedEvent(List.of(new Change(before, after)));
+    }
+
+    public static TransactionChangedEvent deleted(Snapshot before) {
+        return new TransactionChangedEvent(List.of(new Change(before, null)));
+    }
+}
@@ -0,0 +1,30 @@
+package com.task.Crm.Mappers;
+
+import com.task.Crm.DTO.SellerDTO;
+import com.task.Crm.Models.Seller;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SellerMapper {
+    public SellerDTO toDTO(Seller seller) {
+        if (seller == null) {
+            return null;
+        }
+        SellerDTO sellerDTO = new SellerDTO();
+        sellerDTO.setId(seller.getId());
+        sellerDTO.setName(seller.getName());
+        sellerDTO.setContact_info(seller.getContact_info());
+        return sellerDTO;
+    }
+
+    public Seller toEntity(SellerDTO sellerDTO) {
+        if (sellerDTO == null) {
+            return null;
+        }
+        Seller seller = new Seller();
+        seller.setId(sellerDTO.getId());
+        seller.setName(sellerDTO.getName());
+        seller.setContact_info(sellerDTO.getContact_info());
+        return seller;
+    }
+}
@@ -0,0 +1,51 @@
+package com.task.Crm.Mappers;
+
+import com.task.Crm.DAO.SellerDAO;
+import com.task.Crm.DTO.SellerDTO;
+import com.task.Crm.DTO.TransactionDTO;
+import com.task.Crm.Models.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TransactionMapper {
+    private final SellerMapper sellerMapper;
+
+    @Autowired
+    public TransactionMapper(SellerMapper sellerMapper) {
+        this.sellerMapper = sellerMapper;
+    }
+
+    public TransactionDTO toDTO(Transaction transaction) {
+        if (transaction == null) {
+            return null;
+        }
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setAmount(transaction.getAmount());
+        transactionDTO.setPaymentType(transaction.getPaymentType());
+        transactionDTO.setTransactionDate(transaction.getTransactionDate());
+        transactionDTO.setSeller(sellerMapper.toDTO(transaction.getSeller()));
+        return transactionDTO;
+    }
+
+    public TransactionDTO toDTO(SellerDAO.TransactionRow row, SellerDTO seller) {
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setAmount(row.amount());
+        transactionDTO.setPaymentType(row.paymentType());
+        transactionDTO.setTransactionDate(row.transactionDate());
+        transactionDTO.setSeller(seller);
+        return transactionDTO;
+    }
+
+    public Transaction toEntity(TransactionDTO transactionDTO) {
+        if (transactionDTO == null) {
+            return null;
+        }
+        Transaction transaction = new Transaction();
+        transaction.setAmount(transactionDTO.getAmount());
+        transaction.setPaymentType(transactionDTO.getPaymentType());
+        transaction.setTransactionDate(transactionDTO.getTransactionDate());
+        transaction.setSeller(sellerMapper.toEntity(transactionDTO.getSeller()));
+        return transaction;
+    }
+}
@@ -0,0 +1,24 @@
+package com.task.Crm.Metrics;
+
+public class QueryOrigin {
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    static String enter(String origin) {
+        String previous = CURRENT.get();
+        CURRENT.set(origin);
+        return previous;
+    }
+
+    static void exit(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    static String current() {
+        String origin = CURRENT.get();
+        return origin == null ? "unknown" : origin;
+    }
+}
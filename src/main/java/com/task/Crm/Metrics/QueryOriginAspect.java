@@ -0,0 +1,35 @@
+package com.task.Crm.Metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+@Aspect
+@Component
+public class QueryOriginAspect {
+    @Around("within(com.task.Crm.DAO..*) || this(org.springframework.data.repository.Repository)")
+    public Object trackOrigin(ProceedingJoinPoint joinPoint) throws Throwable {
+        String previous = QueryOrigin.enter(getTypeName(joinPoint) + "." + joinPoint.getSignature().getName());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            QueryOrigin.exit(previous);
+        }
+    }
+
+    private String getTypeName(ProceedingJoinPoint joinPoint) {
+        if (joinPoint.getThis() instanceof Repository<?, ?> repository) {
+            return Arrays.stream(AopProxyUtils.proxiedUserInterfaces(repository))
+                    .filter(type -> type.getPackageName().startsWith("com.task.Crm"))
+                    .findFirst()
+                    .map(Class::getSimpleName)
+                    .orElse(joinPoint.getSignature().getDeclaringType().getSimpleName());
+        }
+        return joinPoint.getSignature().getDeclaringType().getSimpleName();
+    }
+}
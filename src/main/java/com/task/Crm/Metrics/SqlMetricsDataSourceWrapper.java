@@ -0,0 +1,100 @@
+package com.task.Crm.Metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Component
+public class SqlMetricsDataSourceWrapper implements BeanPostProcessor {
+    private static final Logger slowQueryLog = LoggerFactory.getLogger("com.task.Crm.SlowQuery");
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final ObjectProvider<QueryExecutionListener> listeners;
+    private final Duration slowQueryThreshold;
+    private final double slowQuerySampleRate;
+
+    @Autowired
+    public SqlMetricsDataSourceWrapper(ObjectProvider<MeterRegistry> meterRegistry,
+                                       ObjectProvider<QueryExecutionListener> listeners,
+                                       @Value("${crm.sql.slow-query.threshold:200ms}") Duration slowQueryThreshold,
+                                       @Value("${crm.sql.slow-query.sample-rate:1.0}") double slowQuerySampleRate) {
+        this.meterRegistry = meterRegistry;
+        this.listeners = listeners;
+        this.slowQueryThreshold = slowQueryThreshold;
+        this.slowQuerySampleRate = slowQuerySampleRate;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+            ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(dataSource)
+                    .name(beanName)
+                    .listener(new SqlMetricsListener());
+            listeners.orderedStream().forEach(builder::listener);
+            return builder.build();
+        }
+        return bean;
+    }
+
+    private class SqlMetricsListener implements QueryExecutionListener {
+        private volatile Timer statementTimer;
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            long elapsedMillis = execInfo.getElapsedTime();
+            SqlStatistics statistics = SqlStatistics.current();
+            if (statistics != null) {
+                statistics.record(elapsedMillis);
+            }
+            Timer timer = getStatementTimer();
+            if (timer != null) {
+                timer.record(elapsedMillis, TimeUnit.MILLISECONDS);
+            }
+
+            if (elapsedMillis >= slowQueryThreshold.toMillis()
+                    && ThreadLocalRandom.current().nextDouble() < slowQuerySampleRate) {
+                slowQueryLog.warn("Slow query: {} ms from {}{}: {}", elapsedMillis, QueryOrigin.current(),
+                        execInfo.isBatch() ? " (batch of " + execInfo.getBatchSize() + ")" : "",
+                        queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; ")));
+            }
+        }
+
+        private Timer getStatementTimer() {
+            Timer timer = statementTimer;
+            if (timer == null) {
+                MeterRegistry registry = meterRegistry.getIfAvailable();
+                if (registry == null) {
+                    return null;
+                }
+                timer = Timer.builder("crm.sql.statement")
+                        .description("JDBC statement execution time")
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(registry);
+                statementTimer = timer;
+            }
+            return timer;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.task.Crm.Metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class SqlRequestMetricsFilter extends OncePerRequestFilter {
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public SqlRequestMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatistics statistics = SqlStatistics.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatistics.clear();
+            record(request, statistics);
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatistics statistics) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+
+        DistributionSummary.builder("crm.http.sql.statements")
+                .description("JDBC statements executed per request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(statistics.getStatements());
+        Timer.builder("crm.http.sql.time")
+                .description("Total JDBC execution time per request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(statistics.getElapsedMillis(), TimeUnit.MILLISECONDS);
+    }
+}
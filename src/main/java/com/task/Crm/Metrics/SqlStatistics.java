@@ -0,0 +1,35 @@
+package com.task.Crm.Metrics;
+
+public class SqlStatistics {
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long elapsedMillis;
+
+    static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    void record(long elapsedMillis) {
+        this.statements++;
+        this.elapsedMillis += elapsedMillis;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
@@ -1,5 +1,6 @@
 package com.task.Crm.Models;
 
+import com.task.Crm.DTO.SellerDTO;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -14,7 +15,15 @@ import java.util.List;
 @Getter
 @Entity
 @Table(name = "seller")
+@SqlResultSetMapping(name = Seller.SELLER_DTO_MAPPING, classes = @ConstructorResult(targetClass = SellerDTO.class,
+        columns = {
+                @ColumnResult(name = "id", type = Integer.class),
+                @ColumnResult(name = "name", type = String.class),
+                @ColumnResult(name = "contact_info", type = String.class)
+        }))
 public class Seller {
+    public static final String SELLER_DTO_MAPPING = "SellerDTO";
+
     @Id
     @Column(name = "id")
     @GeneratedValue(strategy = GenerationType.IDENTITY)
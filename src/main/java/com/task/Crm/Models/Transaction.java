@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
 public class Transaction {
     @Id
     @Column(name = "id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_id_seq")
+    @SequenceGenerator(name = "transaction_id_seq", sequenceName = "transaction_id_seq", allocationSize = 50)
     private int id;
 
     @Column(name = "amount")
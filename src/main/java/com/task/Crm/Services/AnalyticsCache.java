@@ -0,0 +1,93 @@
+package com.task.Crm.Services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.task.Crm.DTO.SellerDTO;
+import com.task.Crm.util.PeriodRange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Component
+public class AnalyticsCache {
+    private final Cache<Key, List<SellerDTO>> cache;
+    private final AtomicLong generation = new AtomicLong();
+    private final long settleNanos;
+    private volatile long invalidatedAt = System.nanoTime();
+
+    @Autowired
+    public AnalyticsCache(@Value("${crm.analytics.cache.max-size:1000}") long maxSize,
+                          @Value("${crm.analytics.cache.expire-after-write:1h}") Duration expireAfterWrite,
+                          @Value("${crm.datasource.replica.enabled:false}") boolean replicaEnabled,
+                          @Value("${crm.datasource.replica.max-lag:5s}") Duration replicaMaxLag,
+                          @Value("${crm.datasource.replica.lag-check-interval:1s}") Duration lagCheckInterval) {
+        this.settleNanos = replicaEnabled ? replicaMaxLag.plus(lagCheckInterval).toNanos() : 0;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    public List<SellerDTO> get(String query, PeriodRange period, double amount, Supplier<List<SellerDTO>> loader) {
+        if (period.end().isAfter(LocalDateTime.now())) {
+            return loader.get();
+        }
+        Key key = new Key(query, period, amount);
+        List<SellerDTO> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        // A load that overlaps an invalidation may have read the old rows, so it is served but not cached.
+        // With replicas, so is a load right after one: the replica it read from may not have the write yet.
+        long loadGeneration = generation.get();
+        boolean settled = settleNanos == 0 || System.nanoTime() - invalidatedAt >= settleNanos;
+        List<SellerDTO> loaded = List.copyOf(loader.get());
+        if (settled) {
+            cache.asMap().compute(key, (ignored, current) -> generation.get() == loadGeneration ? loaded : current);
+        }
+        return loaded;
+    }
+
+    public void invalidate(LocalDateTime transactionDate) {
+        evict(transactionDate);
+        afterCommit(() -> evict(transactionDate));
+    }
+
+    public void invalidateAll() {
+        evictAll();
+        afterCommit(this::evictAll);
+    }
+
+    private void evict(LocalDateTime transactionDate) {
+        invalidatedAt = System.nanoTime();
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.period().contains(transactionDate));
+    }
+
+    private void evictAll() {
+        invalidatedAt = System.nanoTime();
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private record Key(String query, PeriodRange period, double amount) {}
+}
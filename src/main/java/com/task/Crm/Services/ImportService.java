@@ -0,0 +1,304 @@
+package com.task.Crm.Services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.task.Crm.DAO.ImportDAO;
+import com.task.Crm.DTO.ImportJobDTO;
+import com.task.Crm.DTO.ImportRejectDTO;
+import com.task.Crm.Events.ImportCompletedEvent;
+import com.task.Crm.util.ImportExceptions.ImportJobNotFoundException;
+import com.task.Crm.util.CsvReader;
+import com.task.Crm.util.CsvSegments;
+import com.task.Crm.util.ImportExceptions.ImportNotStartedException;
+import com.task.Crm.util.ImportTarget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class ImportService implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ImportService.class);
+
+    public enum Status { QUEUED, LOADING, VALIDATING, MERGING, COMPLETED, FAILED }
+
+    private final ImportDAO importDAO;
+    private final AnalyticsCache analyticsCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VersionRegistry versionRegistry;
+    private final TransactionTemplate importTransaction;
+    private final Cache<UUID, ImportJob> jobs;
+    private final ExecutorService executor;
+    private final String mode;
+    private final int batchSize;
+    private final int chunkSize;
+    private final int maxRejects;
+    private final Path localDir;
+
+    @Autowired
+    public ImportService(ImportDAO importDAO, AnalyticsCache analyticsCache, ApplicationEventPublisher eventPublisher,
+                         VersionRegistry versionRegistry, PlatformTransactionManager transactionManager,
+                         @Value("${crm.import.mode:auto}") String mode,
+                         @Value("${crm.import.batch-size:1000}") int batchSize,
+                         @Value("${crm.import.chunk-size:10000}") int chunkSize,
+                         @Value("${crm.import.max-rejects:100}") int maxRejects,
+                         @Value("${crm.import.local-dir:}") String localDir,
+                         @Value("${crm.import.status-retention:24h}") Duration statusRetention) {
+        this.importDAO = importDAO;
+        this.analyticsCache = analyticsCache;
+        this.eventPublisher = eventPublisher;
+        this.versionRegistry = versionRegistry;
+        this.importTransaction = new TransactionTemplate(transactionManager);
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(statusRetention)
+                .build();
+        this.executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "crm-import"));
+        this.mode = mode;
+        this.batchSize = batchSize;
+        this.chunkSize = chunkSize;
+        this.maxRejects = maxRejects;
+        this.localDir = localDir.isBlank() ? null : Path.of(localDir).toAbsolutePath().normalize();
+    }
+
+    public ImportJobDTO submitUpload(ImportTarget target, InputStream body) {
+        Path file;
+        try {
+            file = Files.createTempFile("crm-import-", ".csv");
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new ImportNotStartedException("Failed to receive the file: " + e.getMessage());
+        }
+        return submit(target, file, true);
+    }
+
+    public ImportJobDTO submitLocal(ImportTarget target, String path) {
+        if (localDir == null) {
+            throw new ImportNotStartedException("Import of local files is disabled, set crm.import.local-dir");
+        }
+        Path file = localDir.resolve(path).normalize();
+        if (!file.startsWith(localDir) || !Files.isRegularFile(file)) {
+            throw new ImportNotStartedException("File " + path + " was not found in the import directory");
+        }
+        return submit(target, file, false);
+    }
+
+    public ImportJobDTO getStatus(UUID id) {
+        ImportJob job = jobs.getIfPresent(id);
+        if (job == null) {
+            throw new ImportJobNotFoundException();
+        }
+        return job.toDTO();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private ImportJobDTO submit(ImportTarget target, Path file, boolean deleteAfter) {
+        ImportJob job = new ImportJob(UUID.randomUUID(), target);
+        try {
+            job.bytesTotal = Files.size(file);
+        } catch (IOException e) {
+            throw new ImportNotStartedException("Failed to read the file: " + e.getMessage());
+        }
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job, file, deleteAfter));
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(job.id);
+            throw new ImportNotStartedException("The import executor is shut down");
+        }
+        return job.toDTO();
+    }
+
+    private void run(ImportJob job, Path file, boolean deleteAfter) {
+        job.startedAt = LocalDateTime.now();
+        try (InputStream input = new CountingInputStream(new BufferedInputStream(Files.newInputStream(file)),
+                job.bytesRead)) {
+            // Loading and merging commit every chunk on its own so that a large file does not hold back
+            // pg_snapshot_xmin, which the change feed waits for, for the whole duration of the import.
+            importTransaction.executeWithoutResult(status -> importDAO.createStaging(job.target, job.id));
+            job.status = Status.LOADING;
+            boolean copy = "copy".equals(mode)
+                    || ("auto".equals(mode) && Boolean.TRUE.equals(importTransaction.execute(status ->
+                    importDAO.supportsCopy())));
+            job.method = copy ? "COPY" : "BATCH";
+            if (copy) {
+                load(job, new CsvSegments(input));
+            } else {
+                load(job, new CsvReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+            }
+            for (long first = 1; first <= job.rowsRead; first += chunkSize) {
+                long from = first;
+                long to = first + chunkSize - 1;
+                Long imported = importTransaction.execute(status -> {
+                    job.status = Status.VALIDATING;
+                    importDAO.validate(job.target, job.id, from, to);
+                    job.status = Status.MERGING;
+                    long merged = importDAO.merge(job.target, job.id, from, to);
+                    if (merged > 0) {
+                        analyticsCache.invalidateAll();
+                        versionRegistry.sellersAndTransactionsChanged();
+                    }
+                    return merged;
+                });
+                job.rowsImported += imported;
+            }
+            importTransaction.executeWithoutResult(status -> {
+                job.rowsRejected = importDAO.countRejects(job.target, job.id);
+                job.rejects = importDAO.getRejects(job.target, job.id, maxRejects);
+            });
+            dropStaging(job);
+            publishImported(job);
+            job.status = Status.COMPLETED;
+            log.info("Imported {} {} ({} rejected) by {} in {} ms", job.rowsImported, job.target, job.rowsRejected,
+                    job.method, Duration.between(job.startedAt, LocalDateTime.now()).toMillis());
+        } catch (IOException | RuntimeException e) {
+            Throwable cause = e instanceof UncheckedIOException ? e.getCause() : e;
+            log.warn("Import {} of {} failed after {} rows were imported", job.id, job.target, job.rowsImported, e);
+            job.error = cause.getMessage();
+            dropStaging(job);
+            if (job.rowsImported > 0) {
+                publishImported(job);
+            }
+            job.status = Status.FAILED;
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            if (deleteAfter) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("Failed to delete {}", file, e);
+                }
+            }
+        }
+    }
+
+    private void load(ImportJob job, CsvSegments segments) throws IOException {
+        boolean header = true;
+        while (segments.hasNext()) {
+            InputStream segment = segments.next(header ? chunkSize + 1 : chunkSize);
+            boolean withHeader = header;
+            job.rowsRead += importTransaction.execute(status ->
+                    importDAO.copy(job.target, job.id, segment, withHeader));
+            header = false;
+        }
+    }
+
+    private void load(ImportJob job, CsvReader reader) throws IOException {
+        reader.next();
+        long rows;
+        do {
+            long rowsBefore = job.rowsRead;
+            rows = importTransaction.execute(status ->
+                    importDAO.insertBatches(job.target, job.id, reader, rowsBefore, chunkSize, batchSize));
+            job.rowsRead += rows;
+        } while (rows == chunkSize);
+    }
+
+    // The in-memory analytics only see the imported rows after reloading on the event, so the analytics
+    // version is bumped once here rather than with every chunk.
+    private void publishImported(ImportJob job) {
+        eventPublisher.publishEvent(new ImportCompletedEvent(job.target, job.rowsImported));
+        versionRegistry.analyticsChanged();
+    }
+
+    private void dropStaging(ImportJob job) {
+        try {
+            importTransaction.executeWithoutResult(status -> importDAO.dropStaging(job.target, job.id));
+        } catch (RuntimeException e) {
+            log.warn("Failed to drop the staging table of import {}", job.id, e);
+        }
+    }
+
+    private static class ImportJob {
+        private final UUID id;
+        private final ImportTarget target;
+        private final AtomicLong bytesRead = new AtomicLong();
+        private volatile Status status = Status.QUEUED;
+        private volatile String method;
+        private volatile long bytesTotal;
+        private volatile long rowsRead;
+        private volatile long rowsImported;
+        private volatile long rowsRejected;
+        private volatile List<ImportRejectDTO> rejects = List.of();
+        private volatile String error;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+
+        ImportJob(UUID id, ImportTarget target) {
+            this.id = id;
+            this.target = target;
+        }
+
+        ImportJobDTO toDTO() {
+            ImportJobDTO dto = new ImportJobDTO();
+            dto.setId(id.toString());
+            dto.setTarget(target.name());
+            dto.setStatus(status.name());
+            dto.setMethod(method);
+            dto.setBytesTotal(bytesTotal);
+            dto.setBytesRead(bytesRead.get());
+            dto.setRowsRead(rowsRead);
+            dto.setRowsImported(rowsImported);
+            dto.setRowsRejected(rowsRejected);
+            dto.setRejects(rejects);
+            dto.setError(error);
+            dto.setStartedAt(startedAt);
+            dto.setFinishedAt(finishedAt);
+            return dto;
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private final AtomicLong count;
+
+        CountingInputStream(InputStream input, AtomicLong count) {
+            super(input);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count.addAndGet(read);
+            }
+            return read;
+        }
+    }
+}
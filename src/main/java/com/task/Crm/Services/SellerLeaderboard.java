@@ -0,0 +1,299 @@
+package com.task.Crm.Services;
+
+import com.task.Crm.DAO.RevenueRollupDAO;
+import com.task.Crm.DAO.SellerDAO;
+import com.task.Crm.DAO.TransactionDAO;
+import com.task.Crm.DTO.LeaderboardDTO;
+import com.task.Crm.DTO.LeaderboardEntryDTO;
+import com.task.Crm.DTO.SellerDTO;
+import com.task.Crm.Events.ImportCompletedEvent;
+import com.task.Crm.Events.ReloadBarrier;
+import com.task.Crm.Events.SellerChangedEvent;
+import com.task.Crm.Events.TransactionChangedEvent;
+import com.task.Crm.util.ImportTarget;
+import com.task.Crm.util.IncorrectPageRequest;
+import com.task.Crm.util.IncorrectPeriod;
+import com.task.Crm.util.PeriodRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+public class SellerLeaderboard implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(SellerLeaderboard.class);
+
+    public enum Period {
+        DAY, MONTH, QUARTER, YEAR;
+
+        PeriodRange rangeOf(LocalDateTime now) {
+            LocalDate today = now.toLocalDate();
+            return switch (this) {
+                case DAY -> range(today, today.plusDays(1));
+                case MONTH -> range(today.withDayOfMonth(1), today.withDayOfMonth(1).plusMonths(1));
+                case QUARTER -> {
+                    LocalDate start = today.withMonth((today.getMonthValue() - 1) / 3 * 3 + 1).withDayOfMonth(1);
+                    yield range(start, start.plusMonths(3));
+                }
+                case YEAR -> range(today.withDayOfYear(1), today.withDayOfYear(1).plusYears(1));
+            };
+        }
+
+        private static PeriodRange range(LocalDate start, LocalDate end) {
+            return new PeriodRange(start.atStartOfDay(), end.atStartOfDay());
+        }
+
+        static Period of(String period) {
+            for (Period value : values()) {
+                if (value.name().equalsIgnoreCase(period)) {
+                    return value;
+                }
+            }
+            throw new IncorrectPeriod("Incorrect period: " + period + ". Expected day, month, quarter or year");
+        }
+    }
+
+    private record Standing(int sellerId, long amount, long count) {}
+
+    private static final Comparator<Standing> RANKING = Comparator.comparingLong(Standing::amount).reversed()
+            .thenComparingInt(Standing::sellerId);
+
+    private final SellerDAO sellerDAO;
+    private final RevenueRollupDAO revenueRollupDAO;
+    private final TransactionDAO transactionDAO;
+    private final VersionRegistry versionRegistry;
+    private final TransactionTemplate snapshotTransaction;
+    private final ReloadBarrier changes = new ReloadBarrier();
+    private final int defaultSize;
+    private final int maxSize;
+    private final Map<Period, AtomicReference<Board>> boards = new EnumMap<>(Period.class);
+    private volatile boolean running;
+
+    @Autowired
+    public SellerLeaderboard(SellerDAO sellerDAO, RevenueRollupDAO revenueRollupDAO, TransactionDAO transactionDAO,
+                             VersionRegistry versionRegistry, PlatformTransactionManager transactionManager,
+                             @Value("${crm.leaderboard.default-size:10}") int defaultSize,
+                             @Value("${crm.leaderboard.max-size:100}") int maxSize) {
+        this.sellerDAO = sellerDAO;
+        this.revenueRollupDAO = revenueRollupDAO;
+        this.transactionDAO = transactionDAO;
+        this.versionRegistry = versionRegistry;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.defaultSize = defaultSize;
+        this.maxSize = maxSize;
+        LocalDateTime now = LocalDateTime.now();
+        for (Period period : Period.values()) {
+            boards.put(period, new AtomicReference<>(new Board(period.rangeOf(now))));
+        }
+    }
+
+    public LeaderboardDTO getLeaderboard(String period, Integer size) {
+        Period leaderboardPeriod = Period.of(period);
+        int limit = size == null ? defaultSize : size;
+        if (limit < 1 || limit > maxSize) {
+            throw new IncorrectPageRequest("Leaderboard size should be between 1 and " + maxSize);
+        }
+
+        Board board = board(leaderboardPeriod, LocalDateTime.now());
+        List<Standing> standings = board.top(limit);
+        Map<Integer, SellerDTO> sellers = standings.isEmpty() ? Map.of() : sellerDAO.getSellersByIds(
+                        standings.stream().map(Standing::sellerId).toList()).stream()
+                .collect(Collectors.toMap(SellerDTO::getId, Function.identity()));
+
+        List<LeaderboardEntryDTO> entries = new ArrayList<>(standings.size());
+        int rank = 0;
+        long previousAmount = Long.MAX_VALUE;
+        for (int i = 0; i < standings.size(); i++) {
+            Standing standing = standings.get(i);
+            if (standing.amount() < previousAmount) {
+                rank = i + 1;
+                previousAmount = standing.amount();
+            }
+            SellerDTO seller = sellers.get(standing.sellerId());
+            if (seller != null) {
+                entries.add(new LeaderboardEntryDTO(rank, seller, standing.amount(), standing.count()));
+            }
+        }
+
+        LeaderboardDTO leaderboard = new LeaderboardDTO();
+        leaderboard.setPeriod(leaderboardPeriod.name().toLowerCase());
+        leaderboard.setPeriodStart(board.range.start());
+        leaderboard.setPeriodEnd(board.range.end());
+        leaderboard.setSellers(entries);
+        return leaderboard;
+    }
+
+    @EventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        changes.afterCommit(() -> apply(event));
+    }
+
+    @EventListener
+    public void onSellerChanged(SellerChangedEvent event) {
+        if (event.type() == SellerChangedEvent.Type.DELETED) {
+            changes.afterCommit(() -> remove(event.sellerId()));
+        }
+    }
+
+    @EventListener
+    public void onImportCompleted(ImportCompletedEvent event) {
+        if (running && event.target() == ImportTarget.TRANSACTIONS && event.imported() > 0) {
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        Map<Period, Board> rebuilt = new EnumMap<>(Period.class);
+        try {
+            snapshotTransaction.executeWithoutResult(status -> {
+                changes.pin(transactionDAO::takeSnapshot);
+                for (Period period : Period.values()) {
+                    Board board = new Board(period.rangeOf(now));
+                    for (SellerDAO.SellerRevenue revenue : revenueRollupDAO.getRevenueBySeller(
+                            board.range.start().toLocalDate(), board.range.end().toLocalDate())) {
+                        board.add(revenue.sellerId(), revenue.amount(), revenue.count());
+                    }
+                    rebuilt.put(period, board);
+                }
+            });
+        } catch (RuntimeException e) {
+            changes.cancel();
+            versionRegistry.analyticsChanged();
+            throw e;
+        }
+        changes.replay(() -> rebuilt.forEach((period, board) -> boards.get(period).set(board)));
+        versionRegistry.analyticsChanged();
+        log.info("Seller leaderboards rebuilt in {} ms", System.currentTimeMillis() - started);
+    }
+
+    @Override
+    public void start() {
+        rebuild();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void apply(TransactionChangedEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Period period : Period.values()) {
+            Board board = board(period, now);
+            for (TransactionChangedEvent.Change change : event.changes()) {
+                if (change.before() != null && board.range.contains(change.before().transactionDate())) {
+                    board.add(change.before().sellerId(), -change.before().amount(), -1);
+                }
+                if (change.after() != null && board.range.contains(change.after().transactionDate())) {
+                    board.add(change.after().sellerId(), change.after().amount(), 1);
+                }
+            }
+        }
+    }
+
+    private void remove(int sellerId) {
+        for (Period period : Period.values()) {
+            board(period, LocalDateTime.now()).remove(sellerId);
+        }
+    }
+
+    private Board board(Period period, LocalDateTime now) {
+        AtomicReference<Board> reference = boards.get(period);
+        Board board = reference.get();
+        while (!board.range.contains(now)) {
+            Board next = new Board(period.rangeOf(now));
+            if (reference.compareAndSet(board, next)) {
+                log.info("Seller leaderboard for {} rolled over to {}", period, next.range.start());
+                return next;
+            }
+            board = reference.get();
+        }
+        return board;
+    }
+
+    private static class Board {
+        private final PeriodRange range;
+        private final Map<Integer, Standing> standings = new HashMap<>();
+        private final ConcurrentSkipListSet<Standing> ranking = new ConcurrentSkipListSet<>(RANKING);
+
+        Board(PeriodRange range) {
+            this.range = range;
+        }
+
+        synchronized void add(int sellerId, long amount, long count) {
+            Standing current = standings.get(sellerId);
+            Standing updated = current == null
+                    ? new Standing(sellerId, amount, count)
+                    : new Standing(sellerId, current.amount() + amount, current.count() + count);
+            boolean samePosition = current != null && RANKING.compare(current, updated) == 0;
+            if (samePosition) {
+                ranking.remove(current);
+            }
+            if (updated.count() > 0) {
+                standings.put(sellerId, updated);
+                ranking.add(updated);
+            } else {
+                standings.remove(sellerId);
+            }
+            if (current != null && !samePosition) {
+                ranking.remove(current);
+            }
+        }
+
+        synchronized void remove(int sellerId) {
+            Standing current = standings.remove(sellerId);
+            if (current != null) {
+                ranking.remove(current);
+            }
+        }
+
+        List<Standing> top(int limit) {
+            List<Standing> top = new ArrayList<>(limit);
+            Set<Integer> seen = new HashSet<>();
+            for (Standing standing : ranking) {
+                if (seen.add(standing.sellerId())) {
+                    top.add(standing);
+                    if (top.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            return top;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.task.Crm.Services;
+
+import com.task.Crm.Config.CacheConfig;
+import com.task.Crm.DAO.RevenueRollupDAO;
+import com.task.Crm.DAO.SellerDAO;
+import com.task.Crm.DTO.SellerOffboardResultDTO;
+import com.task.Crm.Events.SellerChangedEvent;
+import com.task.Crm.Events.TransactionChangedEvent;
+import com.task.Crm.util.SellerExceptions.SellerNotDeletedException;
+import com.task.Crm.util.SellerExceptions.SellerNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+@Service
+public class SellerOffboardingService {
+    private static final Logger log = LoggerFactory.getLogger(SellerOffboardingService.class);
+
+    private record ChunkResult(int transactions, List<Integer> sellers, boolean completed) {}
+
+    private final SellerDAO sellerDAO;
+    private final RevenueRollupDAO revenueRollupDAO;
+    private final AnalyticsCache analyticsCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VersionRegistry versionRegistry;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate chunkTransaction;
+    private final int maxSize;
+    private final int sellerChunkSize;
+    private final int transactionChunkSize;
+
+    @Autowired
+    public SellerOffboardingService(SellerDAO sellerDAO, RevenueRollupDAO revenueRollupDAO,
+                                    AnalyticsCache analyticsCache, ApplicationEventPublisher eventPublisher,
+                                    VersionRegistry versionRegistry, CacheManager cacheManager,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${crm.sellers.offboard.max-size:10000}") int maxSize,
+                                    @Value("${crm.sellers.offboard.seller-chunk-size:100}") int sellerChunkSize,
+                                    @Value("${crm.sellers.offboard.transaction-chunk-size:5000}") int transactionChunkSize) {
+        this.sellerDAO = sellerDAO;
+        this.revenueRollupDAO = revenueRollupDAO;
+        this.analyticsCache = analyticsCache;
+        this.eventPublisher = eventPublisher;
+        this.versionRegistry = versionRegistry;
+        this.cacheManager = cacheManager;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.maxSize = maxSize;
+        this.sellerChunkSize = sellerChunkSize;
+        this.transactionChunkSize = transactionChunkSize;
+    }
+
+    public void delete(int id) {
+        if (offboard(List.of(id), false).getSellers() == 0) {
+            throw new SellerNotFoundException();
+        }
+    }
+
+    public SellerOffboardResultDTO offboard(List<Integer> sellerIds, boolean archive) {
+        if (sellerIds == null || sellerIds.isEmpty()) {
+            throw new SellerNotDeletedException("Seller ids should not be empty");
+        }
+        if (sellerIds.size() > maxSize) {
+            throw new SellerNotDeletedException("At most " + maxSize + " sellers can be offboarded by one request");
+        }
+        List<Integer> ids = sellerIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .toList();
+
+        long started = System.currentTimeMillis();
+        long transactions = 0;
+        Set<Integer> removed = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += sellerChunkSize) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + sellerChunkSize, ids.size()));
+            ChunkResult result;
+            do {
+                result = chunkTransaction.execute(status -> offboardChunk(chunk, archive));
+                transactions += result.transactions();
+            } while (!result.completed());
+            removed.addAll(result.sellers());
+        }
+
+        List<Integer> notFound = ids.stream()
+                .filter(id -> !removed.contains(id))
+                .toList();
+        log.info("Offboarded {} sellers with {} transactions ({}) in {} ms", removed.size(), transactions,
+                archive ? "archived" : "deleted", System.currentTimeMillis() - started);
+        return new SellerOffboardResultDTO(removed.size(), transactions, archive, notFound);
+    }
+
+    private ChunkResult offboardChunk(List<Integer> sellerIds, boolean archive) {
+        List<TransactionChangedEvent.Snapshot> deleted =
+                sellerDAO.deleteTransactionsOfSellers(sellerIds, transactionChunkSize, archive);
+        // Evicted after commit but before the version bumps, so a reader with the new tag cannot hit the old entry.
+        analyticsCache.invalidateAll();
+        if (!deleted.isEmpty()) {
+            List<TransactionChangedEvent.Change> changes = deleted.stream()
+                    .map(snapshot -> new TransactionChangedEvent.Change(snapshot, null))
+                    .toList();
+            revenueRollupDAO.addAll(RevenueRollupDAO.ofChanges(changes));
+            TransactionChangedEvent event = new TransactionChangedEvent(changes);
+            eventPublisher.publishEvent(event);
+            versionRegistry.transactionsChanged(event);
+        }
+        if (deleted.size() == transactionChunkSize) {
+            return new ChunkResult(deleted.size(), List.of(), false);
+        }
+
+        List<Integer> removed = sellerDAO.deleteSellers(sellerIds, archive);
+        Cache sellers = Objects.requireNonNull(cacheManager.getCache(CacheConfig.SELLERS));
+        Cache sellersByName = Objects.requireNonNull(cacheManager.getCache(CacheConfig.SELLERS_BY_NAME));
+        for (Integer id : removed) {
+            sellers.evict(id);
+            eventPublisher.publishEvent(SellerChangedEvent.deleted(id));
+            versionRegistry.sellerChanged(id);
+        }
+        if (!removed.isEmpty()) {
+            sellersByName.clear();
+        }
+        return new ChunkResult(deleted.size(), new ArrayList<>(removed), true);
+    }
+}
@@ -1,115 +1,157 @@
 package com.task.Crm.Services;
 
+import com.task.Crm.Analytics.SellerAnalytics;
+import com.task.Crm.Config.CacheConfig;
+import com.task.Crm.DTO.RevenueBucketDTO;
+import com.task.Crm.DTO.SellerDTO;
+import com.task.Crm.DTO.SellerPatchDTO;
+import com.task.Crm.Events.SellerChangedEvent;
 import com.task.Crm.Repositories.SellerRepository;
 import com.task.Crm.util.SellerExceptions.SellerNotFoundException;
+import com.task.Crm.util.SellerExceptions.SellerNotUpdatedException;
 import com.task.Crm.Models.Seller;
-import com.task.Crm.Models.Transaction;
 import com.task.Crm.DAO.SellerDAO;
 import com.task.Crm.util.EmptyResponseToRequest;
+import com.task.Crm.util.IncorrectPageRequest;
 import com.task.Crm.util.IncorrectPeriod;
+import com.task.Crm.util.PeriodRange;
+import com.task.Crm.util.PeriodValidation;
+import com.task.Crm.util.RevenueBucket;
+import com.task.Crm.util.TransactionCursor;
 import com.task.Crm.util.TransactionException.TransactionEmptyException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.time.Period;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
 public class SellerService {
     private final SellerDAO sellerDao;
     private final SellerRepository sellerRepository;
+    private final SellerAnalytics sellerAnalytics;
+    private final AnalyticsCache analyticsCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VersionRegistry versionRegistry;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final long maxSeriesBuckets;
 
     @Autowired
-    public SellerService(SellerDAO sellerDao, SellerRepository sellerRepository) {
+    public SellerService(SellerDAO sellerDao, SellerRepository sellerRepository, SellerAnalytics sellerAnalytics,
+                         AnalyticsCache analyticsCache, ApplicationEventPublisher eventPublisher,
+                         VersionRegistry versionRegistry,
+                         @Value("${crm.sellers.page-size:50}") int defaultPageSize,
+                         @Value("${crm.sellers.max-page-size:500}") int maxPageSize,
+                         @Value("${crm.analytics.series.max-buckets:10000}") long maxSeriesBuckets) {
         this.sellerDao = sellerDao;
         this.sellerRepository = sellerRepository;
+        this.sellerAnalytics = sellerAnalytics;
+        this.analyticsCache = analyticsCache;
+        this.eventPublisher = eventPublisher;
+        this.versionRegistry = versionRegistry;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.maxSeriesBuckets = maxSeriesBuckets;
     }
 
-    public List<Seller> findAll() {
+    public List<SellerDTO> findAll() {
         return sellerDao.getSellers();
     }
 
-    public Seller findById(int id) {
-        Optional<Seller> foundPerson = sellerRepository.findById(id);
-        return foundPerson.orElseThrow(SellerNotFoundException::new);
+    public int getPageSize(Integer size) {
+        if(size == null){
+            return defaultPageSize;
+        }
+        if(size < 1 || size > maxPageSize){
+            throw new IncorrectPageRequest("Page size should be between 1 and " + maxPageSize);
+        }
+        return size;
+    }
+
+    public List<SellerDTO> findPage(Integer cursor, int size) {
+        if(cursor != null && cursor < 0){
+            throw new IncorrectPageRequest("Incorrect cursor: " + cursor);
+        }
+        return sellerDao.getSellersAfter(cursor == null ? 0 : cursor, size + 1);
+    }
+
+    @Transactional
+    @Cacheable(cacheNames = CacheConfig.SELLERS, key = "#id", sync = true)
+    public SellerDTO findById(int id) {
+        return sellerDao.getSeller(id)
+                .orElseThrow(SellerNotFoundException::new);
     }
 
-    public Seller findByName(String name) {
-        Optional<Seller> foundPerson = sellerRepository.findByName(name);
-        return foundPerson.orElseThrow(SellerNotFoundException::new);
+    public Seller getReference(int id) {
+        return sellerRepository.getReferenceById(id);
     }
 
-    public List<Transaction> getTransactionsBySellerId(int id) {
-        Optional<Seller> foundSeller = sellerRepository.findById(id);
-        Seller seller = foundSeller.orElseThrow(SellerNotFoundException::new);
-        List<Transaction> transactionList = seller.getTransactionList();
-        if (transactionList.isEmpty()) {
+    public Map<Integer, Seller> findAllById(Collection<Integer> ids) {
+        return sellerRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Seller::getId, Function.identity()));
+    }
+
+    @Transactional
+    @Cacheable(cacheNames = CacheConfig.SELLERS_BY_NAME, key = "#name", sync = true)
+    public SellerDTO findByName(String name) {
+        return sellerDao.getSellerByName(name)
+                .orElseThrow(SellerNotFoundException::new);
+    }
+
+    public List<SellerDAO.TransactionRow> getTransactionsBySellerId(int id) {
+        List<SellerDAO.TransactionRow> transactions = sellerDao.getTransactions(id);
+        if (transactions.isEmpty()) {
             throw new TransactionEmptyException();
         }
-        return seller.getTransactionList();
-    }
-
-    private String getMood(String period, LocalDateTime startDate, LocalDateTime endDate) {
-        Period foundPeriod = Period.between(startDate.toLocalDate(), endDate.toLocalDate());
-        Map<String, Period> periodMap = Map.of(
-                "year", Period.of(1, 0, 0),
-                "month", Period.of(0, 1, 0),
-                "day", Period.of(0, 0, 1),
-                "quarter", Period.of(0, 3, 0)
-        );
-        if (periodMap.containsKey(period)) {
-            Period expectedPeriod = periodMap.get(period);
-            if (foundPeriod.equals(expectedPeriod)) {
-                return period;
-            }
-        } else if ("specifiedDates".equals(period)) {
-            return period;
-        }
-        return null;
+        return transactions;
     }
 
-    public List<Seller> getBestSellerForPeriod(String period, LocalDateTime startDate, LocalDateTime endDate){
-        if(startDate == null){
-            throw new IncorrectPeriod("Start date cannot be null");
-        }
-        if(endDate == null){
-            switch (period) {
-                case "year" -> endDate = startDate.plusYears(1);
-                case "month" -> endDate = startDate.plusMonths(1);
-                case "day" -> endDate = startDate.plusDays(1);
-                case "quarter" -> throw new IncorrectPeriod("If period is quarter, then end date cannot be null");
-                default -> endDate = startDate.plusDays(1);
-            }
+    public List<SellerDAO.TransactionRow> getTransactionsPageBySellerId(int id, TransactionCursor cursor,
+                                                                       LocalDateTime from, LocalDateTime to,
+                                                                       String paymentType, int size) {
+        if(from != null && to != null && !from.isBefore(to)){
+            throw new IncorrectPeriod("Start date should be before end date");
         }
-
-        String mood = getMood(period, startDate, endDate);
-
-        if(mood == null){
-            throw new IncorrectPeriod("Incorrect period: " + period + "."
-                    + " Start date: " + startDate + "."
-                    + " End date: " + endDate);
+        List<SellerDAO.TransactionRow> transactions =
+                sellerDao.getTransactions(id, cursor, from, to, paymentType, size + 1);
+        if (cursor == null && transactions.isEmpty()) {
+            throw new TransactionEmptyException();
         }
+        return transactions;
+    }
 
-        List<Seller> sellers = sellerDao.getBestSellerForPeriod(mood, startDate, endDate);
+    public List<SellerDTO> getBestSellerForPeriod(String period, LocalDateTime startDate, LocalDateTime endDate){
+        PeriodRange range = PeriodValidation.getPeriodRange(period, startDate, endDate);
+        List<SellerDTO> sellers = analyticsCache.get("getBestSellerForPeriod", range, 0,
+                () -> sellerAnalytics.getBestSellerForPeriod(range));
         if(sellers.isEmpty()){
             throw new EmptyResponseToRequest(
                     "No sellers were found for this get request: "
                             + "getBestSellerForPeriod"
             );
         }
-        return sellerDao.getBestSellerForPeriod(mood, startDate, endDate);
+        return sellers;
     }
 
-    public List<Seller> getSellersBelowAmountForPeriod(double amount, LocalDateTime startDate, LocalDateTime endDate) {
+    public List<SellerDTO> getSellersBelowAmountForPeriod(double amount, LocalDateTime startDate, LocalDateTime endDate) {
         if(startDate == null || endDate == null){
             throw new IncorrectPeriod("Start date cannot be null and end date cannot be null");
         }
-        List<Seller> sellers = sellerDao.getSellersBelowAmountForPeriod(amount, startDate, endDate);
+        PeriodRange range = new PeriodRange(startDate, endDate);
+        List<SellerDTO> sellers = analyticsCache.get("getSellersBelowAmountForPeriod", range, amount,
+                () -> sellerAnalytics.getSellersBelowAmountForPeriod(amount, range));
         if(sellers.isEmpty()){
             throw new EmptyResponseToRequest(
                     "No sellers were found for this get request: "
@@ -120,28 +162,50 @@ public class SellerService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.SELLERS_BY_NAME, key = "#seller.name")
     public void save(Seller seller) {
         enrichSeller(seller);
         sellerRepository.save(seller);
+        analyticsCache.invalidateAll();
+        eventPublisher.publishEvent(SellerChangedEvent.created(seller.getId()));
+        versionRegistry.sellerChanged(seller.getId());
     }
 
     @Transactional
-    public void update(int id, Seller seller) {
-        Seller foundSeller = findById(id);
-        seller.setId(id);
-        if(seller.getContact_info() == null){
-            seller.setContact_info(foundSeller.getContact_info());
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.SELLERS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.SELLERS_BY_NAME, allEntries = true)
+    })
+    public void update(int id, SellerPatchDTO patch) {
+        if(patch.isEmpty()){
+            throw new SellerNotUpdatedException("At least one of name or contact_info should be set");
         }
-        seller.setRegistrationDate(foundSeller.getRegistrationDate());
-        sellerRepository.save(seller);
+        if(sellerDao.updateSeller(id, patch) == 0){
+            throw new SellerNotFoundException();
+        }
+        analyticsCache.invalidateAll();
+        versionRegistry.sellerChanged(id);
     }
 
-    @Transactional
-    public void delete(int id) {
-        Optional<Seller> foundSeller = sellerRepository.findById(id);
-        Seller seller = foundSeller.orElseThrow(SellerNotFoundException::new);
-        sellerRepository.delete(seller);
+    public List<RevenueBucketDTO> getRevenueSeries(String bucket, LocalDateTime startDate, LocalDateTime endDate,
+                                                   List<Integer> sellerIds, boolean perSeller,
+                                                   boolean byPaymentType) {
+        RevenueBucket revenueBucket = RevenueBucket.of(bucket);
+        if(startDate == null || endDate == null){
+            throw new IncorrectPeriod("Start date cannot be null and end date cannot be null");
+        }
+        if(!startDate.isBefore(endDate)){
+            throw new IncorrectPeriod("Start date should be before end date");
+        }
+        long buckets = revenueBucket.count(startDate, endDate);
+        if(buckets > maxSeriesBuckets){
+            throw new IncorrectPeriod("Period contains " + buckets + " buckets of " + bucket
+                    + ", maximum is " + maxSeriesBuckets);
+        }
+        return sellerDao.getRevenueSeries(revenueBucket, new PeriodRange(startDate, endDate), sellerIds,
+                perSeller, byPaymentType);
     }
+
     private void enrichSeller(Seller seller) {
         seller.setRegistrationDate(LocalDateTime.now());
     }
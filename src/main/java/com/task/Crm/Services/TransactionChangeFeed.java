@@ -0,0 +1,193 @@
+package com.task.Crm.Services;
+
+import com.task.Crm.DAO.TransactionChangeLogDAO;
+import com.task.Crm.DTO.TransactionChangePageDTO;
+import com.task.Crm.Events.ImportCompletedEvent;
+import com.task.Crm.Events.TransactionChangedEvent;
+import com.task.Crm.util.ChangeFeedCursor;
+import com.task.Crm.util.IncorrectPageRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Component
+public class TransactionChangeFeed implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(TransactionChangeFeed.class);
+
+    private static final Comparator<ChangeFeedCursor> CURSOR_ORDER = Comparator.comparingLong(ChangeFeedCursor::xid)
+            .thenComparingLong(ChangeFeedCursor::id);
+
+    private record Waiter(ChangeFeedCursor after, int limit, DeferredResult<TransactionChangePageDTO> result) {}
+
+    private final TransactionChangeLogDAO changeLogDAO;
+    private final TransactionTemplate primaryTransaction;
+    private final int defaultBatchSize;
+    private final int maxBatchSize;
+    private final Duration maxWait;
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeScheduled = new AtomicBoolean();
+    private final ExecutorService poller;
+
+    @Autowired
+    public TransactionChangeFeed(TransactionChangeLogDAO changeLogDAO, PlatformTransactionManager transactionManager,
+                                 @Value("${crm.changes.batch-size:100}") int defaultBatchSize,
+                                 @Value("${crm.changes.max-batch-size:1000}") int maxBatchSize,
+                                 @Value("${crm.changes.max-wait:30s}") Duration maxWait) {
+        this.changeLogDAO = changeLogDAO;
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.defaultBatchSize = defaultBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWait = maxWait;
+        this.poller = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "crm-change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener
+    public void recordChanges(TransactionChangedEvent event) {
+        changeLogDAO.append(event.changes());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChangesCommitted(TransactionChangedEvent event) {
+        scheduleWake();
+    }
+
+    @EventListener
+    public void onImportCompleted(ImportCompletedEvent event) {
+        if (event.imported() > 0) {
+            scheduleWake();
+        }
+    }
+
+    public DeferredResult<TransactionChangePageDTO> poll(String cursor, Integer size, Integer waitSeconds) {
+        ChangeFeedCursor after = ChangeFeedCursor.decode(cursor);
+        int limit = size == null ? defaultBatchSize : size;
+        if (limit < 1 || limit > maxBatchSize) {
+            throw new IncorrectPageRequest("Batch size should be between 1 and " + maxBatchSize);
+        }
+        Duration wait = waitSeconds == null ? Duration.ZERO : Duration.ofSeconds(waitSeconds);
+        if (wait.isNegative() || wait.compareTo(maxWait) > 0) {
+            throw new IncorrectPageRequest("Wait should be between 0 and " + maxWait.toSeconds() + " seconds");
+        }
+
+        DeferredResult<TransactionChangePageDTO> result = new DeferredResult<>(
+                wait.isZero() ? null : wait.toMillis(), () -> page(after, List.of()));
+        Waiter waiter = new Waiter(after, limit, result);
+        if (!wait.isZero()) {
+            waiters.add(waiter);
+            result.onCompletion(() -> waiters.remove(waiter));
+        }
+        if (!check(waiter) && wait.isZero()) {
+            result.setResult(page(after, List.of()));
+        }
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        poller.shutdownNow();
+    }
+
+    private void scheduleWake() {
+        if (!waiters.isEmpty() && wakeScheduled.compareAndSet(false, true)) {
+            poller.execute(this::wakeWaiters);
+        }
+    }
+
+    // One query from the oldest waiting cursor serves every waiter: each one gets the rows after its own cursor.
+    private void wakeWaiters() {
+        wakeScheduled.set(false);
+        List<Waiter> parked = List.copyOf(waiters);
+        if (parked.isEmpty()) {
+            return;
+        }
+        ChangeFeedCursor from = parked.stream()
+                .map(Waiter::after)
+                .min(CURSOR_ORDER)
+                .orElseThrow();
+        int limit = parked.stream()
+                .mapToInt(Waiter::limit)
+                .max()
+                .orElseThrow();
+        List<TransactionChangeLogDAO.LoggedChange> changes;
+        try {
+            changes = primaryTransaction.execute(status -> changeLogDAO.getChanges(from, limit));
+        } catch (RuntimeException e) {
+            log.warn("Change feed poll failed: {}", e.getMessage());
+            parked.forEach(waiter -> waiter.result().setErrorResult(e));
+            return;
+        }
+        // Unless the query hit its limit the rows reach the xmin horizon, so a waiter with nothing after its
+        // cursor has nothing to read yet and stays parked without a query of its own.
+        boolean complete = changes == null || changes.size() < limit;
+        for (Waiter waiter : parked) {
+            try {
+                List<TransactionChangeLogDAO.LoggedChange> slice = slice(changes, waiter);
+                if (!slice.isEmpty()) {
+                    waiter.result().setResult(page(slice.get(slice.size() - 1).cursor(), slice));
+                } else if (!complete) {
+                    check(waiter);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Change feed poll failed: {}", e.getMessage());
+                waiter.result().setErrorResult(e);
+            }
+        }
+    }
+
+    private static List<TransactionChangeLogDAO.LoggedChange> slice(List<TransactionChangeLogDAO.LoggedChange> changes,
+                                                                   Waiter waiter) {
+        if (changes == null) {
+            return List.of();
+        }
+        int low = 0;
+        int high = changes.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (CURSOR_ORDER.compare(changes.get(middle).cursor(), waiter.after()) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return changes.subList(low, Math.min(changes.size(), low + waiter.limit()));
+    }
+
+    private boolean check(Waiter waiter) {
+        List<TransactionChangeLogDAO.LoggedChange> changes = primaryTransaction.execute(status ->
+                changeLogDAO.getChanges(waiter.after(), waiter.limit()));
+        if (changes == null || changes.isEmpty()) {
+            return false;
+        }
+        return waiter.result().setResult(page(changes.get(changes.size() - 1).cursor(), changes));
+    }
+
+    private TransactionChangePageDTO page(ChangeFeedCursor next, List<TransactionChangeLogDAO.LoggedChange> changes) {
+        TransactionChangePageDTO page = new TransactionChangePageDTO();
+        page.setChanges(changes.stream()
+                .map(TransactionChangeLogDAO.LoggedChange::change)
+                .toList());
+        page.setNextCursor(next.encode());
+        return page;
+    }
+}
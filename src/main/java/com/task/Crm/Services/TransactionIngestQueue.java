@@ -0,0 +1,204 @@
+package com.task.Crm.Services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.task.Crm.Models.Transaction;
+import com.task.Crm.util.TransactionException.TrackingIdNotFoundException;
+import com.task.Crm.util.TransactionException.TransactionQueueFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class TransactionIngestQueue implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(TransactionIngestQueue.class);
+
+    public enum Status { ACCEPTED, COMMITTED, FAILED }
+
+    public record IngestResult(Status status, String message) {}
+
+    private record PendingTransaction(UUID trackingId, Transaction transaction) {}
+
+    private final TransactionService transactionService;
+    private final BlockingQueue<PendingTransaction> queue;
+    private final Cache<UUID, IngestResult> results;
+    private final int writerThreads;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration offerTimeout;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer flushTimer;
+    private final Counter rejectedCounter;
+    private volatile boolean running;
+    private ExecutorService writers;
+
+    @Autowired
+    public TransactionIngestQueue(TransactionService transactionService, MeterRegistry meterRegistry,
+                                  @Value("${crm.ingest.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${crm.ingest.writer-threads:2}") int writerThreads,
+                                  @Value("${crm.ingest.batch-size:500}") int batchSize,
+                                  @Value("${crm.ingest.flush-interval:200ms}") Duration flushInterval,
+                                  @Value("${crm.ingest.offer-timeout:100ms}") Duration offerTimeout,
+                                  @Value("${crm.ingest.status-retention:1h}") Duration statusRetention) {
+        this.transactionService = transactionService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.results = Caffeine.newBuilder()
+                .expireAfterWrite(statusRetention)
+                .build();
+        this.writerThreads = writerThreads;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.offerTimeout = offerTimeout;
+
+        Gauge.builder("crm.ingest.queue.depth", queue, BlockingQueue::size)
+                .description("Transactions waiting to be written")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("crm.ingest.batch.size")
+                .description("Transactions committed per flush")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("crm.ingest.flush.latency")
+                .description("Time to write and commit one batch")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("crm.ingest.rejected")
+                .description("Transactions rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    public UUID enqueue(Transaction transaction) {
+        UUID trackingId = UUID.randomUUID();
+        results.put(trackingId, new IngestResult(Status.ACCEPTED, null));
+        boolean accepted;
+        try {
+            accepted = running && queue.offer(new PendingTransaction(trackingId, transaction),
+                    offerTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            results.invalidate(trackingId);
+            rejectedCounter.increment();
+            throw new TransactionQueueFullException();
+        }
+        return trackingId;
+    }
+
+    public IngestResult getStatus(UUID trackingId) {
+        IngestResult result = results.getIfPresent(trackingId);
+        if (result == null) {
+            throw new TrackingIdNotFoundException();
+        }
+        return result;
+    }
+
+    private void runWriter() {
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingTransaction first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<PendingTransaction> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void flush(List<PendingTransaction> batch) {
+        Timer.Sample sample = Timer.start();
+        try {
+            write(batch);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                fail(batch.get(0), e);
+            } else {
+                // Item-level problems come back in the errors map, so an exception means the insert itself broke.
+                // Retrying one by one confines whatever slipped past validation to the items that caused it.
+                log.warn("Failed to write a batch of {} transactions, retrying them one by one", batch.size(), e);
+                for (PendingTransaction pending : batch) {
+                    try {
+                        write(List.of(pending));
+                    } catch (RuntimeException itemException) {
+                        fail(pending, itemException);
+                    }
+                }
+            }
+        }
+        sample.stop(flushTimer);
+        batchSizeSummary.record(batch.size());
+    }
+
+    private void write(List<PendingTransaction> batch) {
+        Map<Integer, String> errors = transactionService.saveAll(batch.stream()
+                .map(PendingTransaction::transaction)
+                .toList());
+        for (int i = 0; i < batch.size(); i++) {
+            String error = errors.get(i);
+            results.put(batch.get(i).trackingId(), error == null
+                    ? new IngestResult(Status.COMMITTED, null)
+                    : new IngestResult(Status.FAILED, error));
+        }
+    }
+
+    private void fail(PendingTransaction pending, RuntimeException e) {
+        log.warn("Failed to write transaction {}", pending.trackingId(), e);
+        results.put(pending.trackingId(), new IngestResult(Status.FAILED, e.getMessage()));
+    }
+
+    @Override
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        writers = Executors.newFixedThreadPool(writerThreads,
+                runnable -> new Thread(runnable, "transaction-ingest-" + threadNumber.incrementAndGet()));
+        running = true;
+        for (int i = 0; i < writerThreads; i++) {
+            writers.submit(this::runWriter);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        writers.shutdown();
+        try {
+            if (!writers.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Transaction ingest writers did not drain {} queued transactions", queue.size());
+                writers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writers.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -1,54 +1,201 @@
 package com.task.Crm.Services;
 
+import com.task.Crm.DAO.RevenueRollupDAO;
+import com.task.Crm.DAO.TransactionDAO;
+import com.task.Crm.DTO.SellerDTO;
+import com.task.Crm.DTO.TransactionDTO;
+import com.task.Crm.DTO.TransactionPatchDTO;
+import com.task.Crm.Events.TransactionChangedEvent;
 import com.task.Crm.Models.Seller;
 import com.task.Crm.Models.Transaction;
+import com.task.Crm.util.TransactionException.TransactionNotCreatedException;
 import com.task.Crm.util.TransactionException.TransactionNotDeleteException;
 import com.task.Crm.util.TransactionException.TransactionNotFoundException;
+import com.task.Crm.util.TransactionException.TransactionNotUpdateException;
 import com.task.Crm.Repositories.TransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
 public class TransactionService {
     private final TransactionRepository transactionRepository;
+    private final TransactionDAO transactionDAO;
+    private final RevenueRollupDAO revenueRollupDAO;
+    private final AnalyticsCache analyticsCache;
     private final SellerService sellerService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VersionRegistry versionRegistry;
+    private final int maxBatchSize;
 
     @Autowired
-    public TransactionService(TransactionRepository transactionRepository, SellerService sellerService) {
+    public TransactionService(TransactionRepository transactionRepository, TransactionDAO transactionDAO,
+                              RevenueRollupDAO revenueRollupDAO, AnalyticsCache analyticsCache,
+                              SellerService sellerService, ApplicationEventPublisher eventPublisher,
+                              VersionRegistry versionRegistry,
+                              @Value("${crm.transactions.batch.max-size:10000}") int maxBatchSize) {
         this.transactionRepository = transactionRepository;
+        this.transactionDAO = transactionDAO;
+        this.revenueRollupDAO = revenueRollupDAO;
+        this.analyticsCache = analyticsCache;
         this.sellerService = sellerService;
+        this.eventPublisher = eventPublisher;
+        this.versionRegistry = versionRegistry;
+        this.maxBatchSize = maxBatchSize;
     }
 
-    public List<Transaction> findAll() {
-        return transactionRepository.findAll();
+    public List<TransactionDTO> findAll() {
+        return transactionDAO.getTransactions();
     }
 
-    public Transaction findOne(int id) {
-        Optional<Transaction> foundPerson = transactionRepository.findById(id);
-        return foundPerson.orElseThrow(TransactionNotFoundException::new);
+    public void exportTransactions(LocalDateTime from, LocalDateTime to, Integer sellerId,
+                                   Consumer<Transaction> consumer) {
+        transactionDAO.streamTransactions(from, to, sellerId, consumer);
+    }
+
+    public TransactionDTO findOne(int id) {
+        return transactionDAO.getTransaction(id)
+                .orElseThrow(TransactionNotFoundException::new);
     }
 
     @Transactional
     public void save(Transaction transaction) {
         enrichTransaction(transaction);
         transactionRepository.save(transaction);
+        revenueRollupDAO.add(transaction.getSeller().getId(), transaction.getTransactionDate(),
+                transaction.getAmount(), 1);
+        analyticsCache.invalidate(transaction.getTransactionDate());
+        publish(TransactionChangedEvent.created(List.of(transaction)));
     }
 
     @Transactional
-    public void update(int id, Transaction transaction) {
-        Optional<Transaction> foundTransaction = transactionRepository.findById(id);
-        if (foundTransaction.isEmpty()) {
+    public Map<Integer, String> saveAll(List<Transaction> transactions) {
+        if (transactions.size() > maxBatchSize) {
+            throw new TransactionNotCreatedException("Batch should contain at most " + maxBatchSize + " transactions");
+        }
+        Set<Integer> sellerIds = transactions.stream()
+                .map(Transaction::getSeller)
+                .filter(Objects::nonNull)
+                .map(Seller::getId)
+                .collect(Collectors.toSet());
+        Map<Integer, Seller> sellers = sellerService.findAllById(sellerIds);
+
+        Map<Integer, String> errors = new TreeMap<>();
+        List<Transaction> validTransactions = new ArrayList<>();
+        Map<Integer, RevenueRollupDAO.Delta> deltas = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            if (transaction.getSeller() == null) {
+                errors.put(i, "Seller should not be empty");
+                continue;
+            }
+            if (transaction.getPaymentType() != null && transaction.getPaymentType().length() > 20) {
+                errors.put(i, "Payment type should be at most 20 characters");
+                continue;
+            }
+            Seller seller = sellers.get(transaction.getSeller().getId());
+            if (seller == null) {
+                errors.put(i, "Seller with id " + transaction.getSeller().getId() + " wasn't found");
+                continue;
+            }
+            transaction.setId(0);
+            transaction.setSeller(seller);
+            transaction.setTransactionDate(now);
+            validTransactions.add(transaction);
+            deltas.merge(seller.getId(),
+                    new RevenueRollupDAO.Delta(seller.getId(), now.toLocalDate(), transaction.getAmount(), 1),
+                    (a, b) -> new RevenueRollupDAO.Delta(a.sellerId(), a.day(), a.amount() + b.amount(), a.count() + b.count()));
+        }
+
+        transactionDAO.insertAll(validTransactions);
+        revenueRollupDAO.addAll(deltas.values());
+        analyticsCache.invalidate(now);
+        publish(TransactionChangedEvent.created(validTransactions));
+        return errors;
+    }
+
+    @Transactional
+    public void update(int id, TransactionPatchDTO patch) {
+        if (patch.isEmpty()) {
+            throw new TransactionNotUpdateException("At least one of amount, paymentType or seller should be set");
+        }
+        TransactionDAO.PatchResult result = transactionDAO.update(id, patch);
+        if (result.before() == null) {
             throw new TransactionNotFoundException();
         }
-        transaction.setId(id);
-        enrichTransaction(transaction);
-        transactionRepository.save(transaction);
+        if (result.after() == null) {
+            throw new TransactionNotUpdateException("Seller with id " + patch.getSellerId() + " wasn't found");
+        }
+        applyChanges(List.of(new TransactionChangedEvent.Change(result.before(), result.after())));
+    }
+
+    @Transactional
+    public Map<Integer, String> updateAll(List<TransactionPatchDTO> patches) {
+        if (patches.size() > maxBatchSize) {
+            throw new TransactionNotUpdateException("Batch should contain at most " + maxBatchSize + " transactions");
+        }
+        Map<Integer, String> errors = new TreeMap<>();
+        List<Integer> indexes = new ArrayList<>();
+        List<TransactionPatchDTO> validPatches = new ArrayList<>();
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < patches.size(); i++) {
+            TransactionPatchDTO patch = patches.get(i);
+            if (patch.getId() == null) {
+                errors.put(i, "Id should not be empty");
+            } else if (patch.isEmpty()) {
+                errors.put(i, "At least one of amount, paymentType or seller should be set");
+            } else if (patch.getPaymentType() != null && patch.getPaymentType().length() > 20) {
+                errors.put(i, "Payment type should be at most 20 characters");
+            } else if (!ids.add(patch.getId())) {
+                errors.put(i, "Transaction with id " + patch.getId() + " is already updated by this batch");
+            } else {
+                indexes.add(i);
+                validPatches.add(patch);
+            }
+        }
+        if (validPatches.isEmpty()) {
+            return errors;
+        }
+
+        List<TransactionDAO.PatchResult> results = transactionDAO.updateAll(validPatches);
+        List<TransactionChangedEvent.Change> changes = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            TransactionDAO.PatchResult result = results.get(i);
+            TransactionPatchDTO patch = validPatches.get(i);
+            if (result.before() == null) {
+                errors.put(indexes.get(i), "Transaction with id " + patch.getId() + " wasn't found");
+            } else if (result.after() == null) {
+                errors.put(indexes.get(i), "Seller with id " + patch.getSellerId() + " wasn't found");
+            } else {
+                changes.add(new TransactionChangedEvent.Change(result.before(), result.after()));
+            }
+        }
+        if (!changes.isEmpty()) {
+            applyChanges(changes);
+        }
+        return errors;
+    }
+
+    private void applyChanges(List<TransactionChangedEvent.Change> changes) {
+        for (TransactionChangedEvent.Change change : changes) {
+            analyticsCache.invalidate(change.before().transactionDate());
+        }
+        revenueRollupDAO.addAll(RevenueRollupDAO.ofChanges(changes));
+        publish(new TransactionChangedEvent(changes));
+    }
+
+    private void publish(TransactionChangedEvent event) {
+        eventPublisher.publishEvent(event);
+        versionRegistry.transactionsChanged(event);
     }
 
     @Transactional
@@ -56,11 +203,22 @@ public class TransactionService {
         Optional<Transaction> foundTransaction = transactionRepository.findById(id);
         Transaction transaction = foundTransaction.orElseThrow(TransactionNotDeleteException::new);
         transactionRepository.delete(transaction);
+        revenueRollupDAO.add(transaction.getSeller().getId(), transaction.getTransactionDate(),
+                -transaction.getAmount(), -1);
+        analyticsCache.invalidate(transaction.getTransactionDate());
+        publish(TransactionChangedEvent.deleted(TransactionChangedEvent.Snapshot.of(transaction)));
+    }
+
+    @Transactional
+    public void rebuildRevenueRollup() {
+        revenueRollupDAO.rebuild();
+        analyticsCache.invalidateAll();
+        versionRegistry.analyticsChanged();
     }
 
     private void enrichTransaction(Transaction transaction) {
-        Seller seller = sellerService.findById(transaction.getSeller().getId());
-        transaction.setSeller(seller);
+        SellerDTO seller = sellerService.findById(transaction.getSeller().getId());
+        transaction.setSeller(sellerService.getReference(seller.getId()));
         transaction.setTransactionDate(LocalDateTime.now());
     }
 
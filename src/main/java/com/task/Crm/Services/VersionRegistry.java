@@ -0,0 +1,169 @@
+package com.task.Crm.Services;
+
+import com.task.Crm.Events.TransactionChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Versions behind the ETags of read endpoints. A controller reads the tag before it reads the body, so a body is
+ * never older than the version in its tag as long as every bump lands after the data it announces is visible:
+ * bumps run in afterCompletion, after the afterCommit callbacks that evict the seller and analytics caches and
+ * apply the change to the in-memory analytics and leaderboards, and those caches do not store a load that
+ * overlapped an eviction. State refreshed outside the committing transaction, such as an analytics reload that
+ * buffered the change, bumps again once it is refreshed.
+ */
+@Component
+public class VersionRegistry {
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Versions sellerVersions;
+    private final Versions transactionVersions;
+    private final Versions sellersVersion;
+    private final Versions analyticsVersion;
+    private final long settleNanos;
+
+    @Autowired
+    public VersionRegistry(@Value("${crm.etag.stripes:4096}") int stripes,
+                           @Value("${crm.datasource.replica.enabled:false}") boolean replicaEnabled,
+                           @Value("${crm.datasource.replica.max-lag:5s}") Duration replicaMaxLag,
+                           @Value("${crm.datasource.replica.lag-check-interval:1s}") Duration lagCheckInterval) {
+        this.settleNanos = replicaEnabled ? replicaMaxLag.plus(lagCheckInterval).toNanos() : 0;
+        this.sellerVersions = new Versions(stripes);
+        this.transactionVersions = new Versions(stripes);
+        this.sellersVersion = new Versions(1);
+        this.analyticsVersion = new Versions(1);
+    }
+
+    public String sellerTag(int sellerId) {
+        long version = sellerVersions.get(sellerVersions.stripe(sellerId));
+        return version < 0 ? null : tag("seller", Long.toString(version));
+    }
+
+    public String sellersTag() {
+        long version = sellersVersion.get(0);
+        return version < 0 ? null : tag("sellers", Long.toString(version));
+    }
+
+    public String transactionTag(int transactionId) {
+        long transactionVersion = transactionVersions.get(transactionVersions.stripe(transactionId));
+        long sellersScopeVersion = sellersVersion.get(0);
+        if (transactionVersion < 0 || sellersScopeVersion < 0) {
+            return null;
+        }
+        return tag("transaction", transactionVersion + "." + sellersScopeVersion);
+    }
+
+    public String analyticsTag(String key) {
+        long version = analyticsVersion.get(0);
+        return version < 0 ? null : tag("analytics", version + "." + key);
+    }
+
+    public void sellerChanged(int sellerId) {
+        afterCommit(() -> {
+            sellerVersions.bump(sellerVersions.stripe(sellerId));
+            sellersVersion.bump(0);
+            analyticsVersion.bump(0);
+        });
+    }
+
+    public void transactionsChanged(TransactionChangedEvent event) {
+        Set<Integer> transactionStripes = new HashSet<>();
+        Set<Integer> sellerStripes = new HashSet<>();
+        for (TransactionChangedEvent.Change change : event.changes()) {
+            if (change.before() != null) {
+                transactionStripes.add(transactionVersions.stripe(change.before().id()));
+                sellerStripes.add(sellerVersions.stripe(change.before().sellerId()));
+            }
+            if (change.after() != null) {
+                transactionStripes.add(transactionVersions.stripe(change.after().id()));
+                sellerStripes.add(sellerVersions.stripe(change.after().sellerId()));
+            }
+        }
+        afterCommit(() -> {
+            transactionStripes.forEach(transactionVersions::bump);
+            sellerStripes.forEach(sellerVersions::bump);
+            analyticsVersion.bump(0);
+        });
+    }
+
+    public void analyticsChanged() {
+        afterCommit(() -> analyticsVersion.bump(0));
+    }
+
+    public void sellersAndTransactionsChanged() {
+        afterCommit(() -> {
+            sellerVersions.bumpAll();
+            transactionVersions.bumpAll();
+            sellersVersion.bump(0);
+        });
+    }
+
+    private String tag(String scope, String version) {
+        return "\"" + epoch + "-" + scope + "-" + version + "\"";
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return Ordered.LOWEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private class Versions {
+        private final AtomicLongArray versions;
+        private final AtomicLongArray bumpedAt;
+
+        Versions(int size) {
+            this.versions = new AtomicLongArray(size);
+            this.bumpedAt = new AtomicLongArray(size);
+            long now = System.nanoTime();
+            for (int stripe = 0; stripe < size; stripe++) {
+                bumpedAt.set(stripe, now);
+            }
+        }
+
+        int stripe(int id) {
+            return Math.floorMod(id, versions.length());
+        }
+
+        long get(int stripe) {
+            long version = versions.get(stripe);
+            if (settleNanos > 0 && System.nanoTime() - bumpedAt.get(stripe) < settleNanos) {
+                return -1;
+            }
+            return version;
+        }
+
+        void bump(int stripe) {
+            bumpedAt.set(stripe, System.nanoTime());
+            versions.incrementAndGet(stripe);
+        }
+
+        void bumpAll() {
+            for (int stripe = 0; stripe < versions.length(); stripe++) {
+                bump(stripe);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.task.Crm.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public record ChangeFeedCursor(long xid, long id) {
+    public static final ChangeFeedCursor START = new ChangeFeedCursor(0, 0);
+
+    public String encode() {
+        String value = xid + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ChangeFeedCursor decode(String cursor) {
+        if (cursor == null) {
+            return START;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf('_');
+            return new ChangeFeedCursor(Long.parseLong(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IncorrectPageRequest("Incorrect cursor: " + cursor);
+        }
+    }
+}
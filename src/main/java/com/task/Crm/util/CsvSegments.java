@@ -0,0 +1,82 @@
+package com.task.Crm.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Cuts a CSV byte stream into consecutive segments of whole records without parsing the fields. A record ends at
+ * a line break outside quotes, the same rule COPY uses, so a quoted field with line breaks stays in one segment.
+ */
+public class CsvSegments {
+    private final InputStream input;
+    private final byte[] buffer = new byte[64 * 1024];
+    private int position;
+    private int limit;
+    private boolean quoted;
+    private boolean carriageReturn;
+
+    public CsvSegments(InputStream input) {
+        this.input = input;
+    }
+
+    public boolean hasNext() throws IOException {
+        return fill();
+    }
+
+    /** Returns a stream over the next {@code records} records; it must be read to the end before the next call. */
+    public InputStream next(long records) {
+        return new InputStream() {
+            private long ended;
+            private boolean done;
+
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] target, int offset, int length) throws IOException {
+                if (length == 0) {
+                    return 0;
+                }
+                if (done || !fill()) {
+                    done = true;
+                    return -1;
+                }
+                int start = position;
+                int end = Math.min(limit, position + length);
+                while (position < end && !done) {
+                    byte c = buffer[position];
+                    if (carriageReturn) {
+                        carriageReturn = false;
+                        if (c != '\n' && ++ended == records) {
+                            done = true;
+                            break;
+                        }
+                    }
+                    position++;
+                    if (c == '"') {
+                        quoted = !quoted;
+                    } else if (!quoted && c == '\r') {
+                        carriageReturn = true;
+                    } else if (!quoted && c == '\n' && ++ended == records) {
+                        done = true;
+                    }
+                }
+                int read = position - start;
+                System.arraycopy(buffer, start, target, offset, read);
+                return read == 0 ? read(target, offset, length) : read;
+            }
+        };
+    }
+
+    private boolean fill() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+        position = 0;
+        limit = Math.max(input.read(buffer), 0);
+        return limit > 0;
+    }
+}
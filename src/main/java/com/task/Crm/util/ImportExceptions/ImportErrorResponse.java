@@ -0,0 +1,15 @@
+package com.task.Crm.util.ImportExceptions;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ImportErrorResponse {
+    private String message;
+    private long timestamp;
+    public ImportErrorResponse(String message, long timestamp) {
+        this.message = message;
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,4 @@
+package com.task.Crm.util.ImportExceptions;
+
+public class ImportJobNotFoundException extends RuntimeException{
+}
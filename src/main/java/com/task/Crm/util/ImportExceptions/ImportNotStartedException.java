@@ -0,0 +1,7 @@
+package com.task.Crm.util.ImportExceptions;
+
+public class ImportNotStartedException extends RuntimeException{
+    public ImportNotStartedException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,6 @@
+package com.task.Crm.util;
+
+public enum ImportTarget {
+    SELLERS,
+    TRANSACTIONS
+}
@@ -0,0 +1,7 @@
+package com.task.Crm.util;
+
+public class IncorrectPageRequest extends RuntimeException {
+    public IncorrectPageRequest(String msg) {
+        super(msg);
+    }
+}
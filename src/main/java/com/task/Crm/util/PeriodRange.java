@@ -0,0 +1,28 @@
+package com.task.Crm.util;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+public record PeriodRange(LocalDateTime start, LocalDateTime end) {
+    public record DaySplit(LocalDate firstDay, LocalDate lastDay, LocalDateTime rawBefore, LocalDateTime rawAfter) {
+        public boolean hasRawRows(PeriodRange period) {
+            return period.start().isBefore(rawBefore) || rawAfter.isBefore(period.end());
+        }
+    }
+
+    public boolean contains(LocalDateTime dateTime) {
+        return !dateTime.isBefore(start) && dateTime.isBefore(end);
+    }
+
+    public DaySplit splitByDays() {
+        LocalDate firstDay = start.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? start.toLocalDate()
+                : start.toLocalDate().plusDays(1);
+        LocalDate lastDay = end.toLocalDate();
+        if (firstDay.isAfter(lastDay)) {
+            return new DaySplit(lastDay, lastDay, start, start);
+        }
+        return new DaySplit(firstDay, lastDay, firstDay.atStartOfDay(), lastDay.atStartOfDay());
+    }
+}
@@ -0,0 +1,68 @@
+package com.task.Crm.util;
+
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.Map;
+
+public class PeriodValidation {
+    private static final Map<String, Period> PERIODS = Map.of(
+            "year", Period.of(1, 0, 0),
+            "month", Period.of(0, 1, 0),
+            "day", Period.of(0, 0, 1),
+            "quarter", Period.of(0, 3, 0)
+    );
+
+    static public String getMood(String period, LocalDateTime startDate, LocalDateTime endDate) {
+        Period foundPeriod = Period.between(startDate.toLocalDate(), endDate.toLocalDate());
+        if (PERIODS.containsKey(period)) {
+            Period expectedPeriod = PERIODS.get(period);
+            if (foundPeriod.equals(expectedPeriod)) {
+                return period;
+            }
+        } else if ("specifiedDates".equals(period)) {
+            return period;
+        }
+        return null;
+    }
+
+    static public PeriodRange getPeriodRange(String period, LocalDateTime startDate, LocalDateTime endDate) {
+        if(startDate == null){
+            throw new IncorrectPeriod("Start date cannot be null");
+        }
+        if(endDate == null){
+            switch (period) {
+                case "year" -> endDate = startDate.plusYears(1);
+                case "month" -> endDate = startDate.plusMonths(1);
+                case "day" -> endDate = startDate.plusDays(1);
+                case "quarter" -> throw new IncorrectPeriod("If period is quarter, then end date cannot be null");
+                default -> endDate = startDate.plusDays(1);
+            }
+        }
+
+        String mood = getMood(period, startDate, endDate);
+
+        if(mood == null){
+            throw new IncorrectPeriod("Incorrect period: " + period + "."
+                    + " Start date: " + startDate + "."
+                    + " End date: " + endDate);
+        }
+
+        switch (mood) {
+            case "year" -> {
+                LocalDateTime start = startDate.toLocalDate().withDayOfYear(1).atStartOfDay();
+                return new PeriodRange(start, start.plusYears(1));
+            }
+            case "month" -> {
+                LocalDateTime start = startDate.toLocalDate().withDayOfMonth(1).atStartOfDay();
+                return new PeriodRange(start, start.plusMonths(1));
+            }
+            case "day" -> {
+                LocalDateTime start = startDate.toLocalDate().atStartOfDay();
+                return new PeriodRange(start, start.plusDays(1));
+            }
+            default -> {
+                return new PeriodRange(startDate, endDate);
+            }
+        }
+    }
+}
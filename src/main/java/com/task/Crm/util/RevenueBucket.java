@@ -0,0 +1,39 @@
+package com.task.Crm.util;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum RevenueBucket {
+    HOUR("hour", ChronoUnit.HOURS, 1),
+    DAY("day", ChronoUnit.DAYS, 1),
+    WEEK("week", ChronoUnit.WEEKS, 1),
+    MONTH("month", ChronoUnit.MONTHS, 1),
+    QUARTER("quarter", ChronoUnit.MONTHS, 3);
+
+    private final String field;
+    private final ChronoUnit unit;
+    private final int units;
+
+    RevenueBucket(String field, ChronoUnit unit, int units) {
+        this.field = field;
+        this.unit = unit;
+        this.units = units;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public long count(LocalDateTime start, LocalDateTime end) {
+        return unit.between(start, end) / units + 1;
+    }
+
+    public static RevenueBucket of(String bucket) {
+        for (RevenueBucket value : values()) {
+            if (value.field.equals(bucket)) {
+                return value;
+            }
+        }
+        throw new IncorrectPeriod("Incorrect bucket: " + bucket + ". Expected hour, day, week, month or quarter");
+    }
+}
@@ -0,0 +1,7 @@
+package com.task.Crm.util.SellerExceptions;
+
+public class SellerNotDeletedException extends RuntimeException{
+    public SellerNotDeletedException(String msg) {
+        super(msg);
+    }
+}
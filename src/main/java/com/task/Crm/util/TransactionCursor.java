@@ -0,0 +1,27 @@
+package com.task.Crm.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+public record TransactionCursor(LocalDateTime transactionDate, int id) {
+    public String encode() {
+        String value = transactionDate + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('_');
+            return new TransactionCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Integer.parseInt(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IncorrectPageRequest("Incorrect cursor: " + cursor);
+        }
+    }
+}
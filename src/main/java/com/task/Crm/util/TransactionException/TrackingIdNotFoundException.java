@@ -0,0 +1,4 @@
+package com.task.Crm.util.TransactionException;
+
+public class TrackingIdNotFoundException extends RuntimeException{
+}
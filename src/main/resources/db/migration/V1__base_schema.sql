@@ -0,0 +1,14 @@
+create table if not exists seller (
+    id                serial primary key,
+    name              varchar(100) not null,
+    contact_info      varchar(255) not null,
+    registration_date timestamp    not null
+);
+
+create table if not exists transaction (
+    id               serial primary key,
+    seller_id        integer     not null references seller (id),
+    amount           integer     not null,
+    payment_type     varchar(20),
+    transaction_date timestamp   not null
+);
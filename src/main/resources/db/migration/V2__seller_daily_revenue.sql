@@ -0,0 +1,14 @@
+create table seller_daily_revenue (
+    seller_id         integer not null references seller (id) on delete cascade,
+    day               date    not null,
+    amount            bigint  not null,
+    transaction_count bigint  not null,
+    primary key (seller_id, day)
+);
+
+create index seller_daily_revenue_day_idx on seller_daily_revenue (day, seller_id) include (amount);
+
+insert into seller_daily_revenue (seller_id, day, amount, transaction_count)
+select seller_id, cast(transaction_date as date), sum(amount), count(*)
+from transaction
+group by seller_id, cast(transaction_date as date);
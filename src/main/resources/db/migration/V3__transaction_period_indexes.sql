@@ -0,0 +1,3 @@
+create index if not exists transaction_date_seller_idx on transaction (transaction_date, seller_id) include (amount);
+
+create index if not exists transaction_seller_date_idx on transaction (seller_id, transaction_date);
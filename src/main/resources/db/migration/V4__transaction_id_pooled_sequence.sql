@@ -0,0 +1 @@
+alter sequence transaction_id_seq increment by 50;
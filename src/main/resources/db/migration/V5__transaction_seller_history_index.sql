@@ -0,0 +1,3 @@
+create index if not exists transaction_seller_date_id_idx on transaction (seller_id, transaction_date, id) include (amount, payment_type);
+
+drop index if exists transaction_seller_date_idx;
@@ -0,0 +1,3 @@
+create index if not exists transaction_date_seller_payment_idx on transaction (transaction_date, seller_id) include (amount, payment_type);
+
+drop index if exists transaction_date_seller_idx;
@@ -0,0 +1,13 @@
+create table if not exists transaction_change_log (
+    id               bigserial   primary key,
+    xid              xid8        not null default pg_current_xact_id(),
+    operation        varchar(10) not null,
+    transaction_id   integer     not null,
+    seller_id        integer     not null,
+    amount           integer     not null,
+    payment_type     varchar(20),
+    transaction_date timestamp   not null,
+    changed_at       timestamp   not null default now()
+);
+
+create index if not exists transaction_change_log_xid_id_idx on transaction_change_log (xid, id);
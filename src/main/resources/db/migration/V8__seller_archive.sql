@@ -0,0 +1,18 @@
+create table if not exists seller_archive (
+    id                integer      primary key,
+    name              varchar(100) not null,
+    contact_info      varchar(255) not null,
+    registration_date timestamp    not null,
+    archived_at       timestamp    not null default now()
+);
+
+create table if not exists transaction_archive (
+    id               integer     primary key,
+    seller_id        integer     not null,
+    amount           integer     not null,
+    payment_type     varchar(20),
+    transaction_date timestamp   not null,
+    archived_at      timestamp   not null default now()
+);
+
+create index if not exists transaction_archive_seller_idx on transaction_archive (seller_id);
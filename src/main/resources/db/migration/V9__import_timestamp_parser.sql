@@ -0,0 +1,10 @@
+create or replace function try_cast_timestamp(value text) returns timestamp
+    language plpgsql stable as
+$$
+begin
+    return cast(value as timestamp);
+exception
+    when invalid_datetime_format or datetime_field_overflow then
+        return null;
+end;
+$$;
@@ -0,0 +1,156 @@
+package com.task.Crm.Analytics;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ColumnStoreTests {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    private record Row(int sellerId, LocalDateTime transactionDate, int amount, int count) {}
+
+    @AfterAll
+    static void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test @DisplayName("Rows appended out of order are sorted when their chunk is sealed")
+    void testSealedChunksAreSorted() {
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            rows.add(new Row(i % 3 + 1, BASE.plusHours(i), 10 + i, 1));
+        }
+        Collections.shuffle(rows, new Random(7));
+        ColumnStore store = load(4, false, rows);
+
+        assertEquals(10, store.size());
+        for (int from = 0; from <= 10; from++) {
+            for (int to = from; to <= 10; to++) {
+                assertTotals(rows, store, BASE.plusHours(from), BASE.plusHours(to));
+            }
+        }
+    }
+
+    @Test @DisplayName("Period start is inclusive and end is exclusive in sealed and tail chunks")
+    void testPeriodBounds() {
+        LocalDateTime start = BASE.plusDays(1);
+        LocalDateTime end = BASE.plusDays(2);
+        List<Row> rows = List.of(
+                new Row(1, start.minusNanos(1_000), 1, 1),
+                new Row(1, start, 10, 1),
+                new Row(1, start.plusHours(12), 100, 1),
+                new Row(1, end.minusNanos(1_000), 1_000, 1),
+                new Row(1, end, 10_000, 1));
+        ColumnStore sorted = load(2, false, rows);
+        ColumnStore tail = load(8, false, rows.reversed());
+
+        for (ColumnStore store : List.of(sorted, tail)) {
+            assertEquals(1_110, store.aggregate(start, end, pool).amount(1));
+            assertEquals(0, store.aggregate(start, start, pool).amount(1));
+            assertEquals(1, store.aggregate(start.minusNanos(1_000), start, pool).amount(1));
+            assertEquals(10_000, store.aggregate(end, end.plusDays(1), pool).amount(1));
+        }
+    }
+
+    @Test @DisplayName("Cancelling rows remove a seller's amount and count")
+    void testSignedRows() {
+        ColumnStore store = new ColumnStore(2, false);
+        store.append(1, BASE, 50, 1);
+        store.append(2, BASE.plusHours(1), 80, 1);
+        store.append(2, BASE.plusHours(1), -80, -1);
+        store.append(3, BASE.plusHours(2), 50, 1);
+
+        ColumnStore.Totals totals = store.aggregate(BASE, BASE.plusDays(1), pool);
+        assertEquals(0, totals.amount(2));
+        assertEquals(List.of(1, 3), totals.bestSellers());
+
+        store.append(2, BASE.plusHours(3), 60, 1);
+        assertEquals(List.of(2), store.aggregate(BASE, BASE.plusDays(1), pool).bestSellers());
+    }
+
+    @Test @DisplayName("Sparse seller ids are summed without sizing the totals to the largest id")
+    void testSparseSellerIds() {
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            rows.add(new Row(1 + (i % 50) * 40_000_000, BASE.plusMinutes(i), 10 + i % 7, 1));
+        }
+        ColumnStore store = load(16, false, rows);
+
+        ColumnStore.Totals totals = store.aggregate(BASE, BASE.plusDays(1), pool);
+        long[] expected = new long[50];
+        for (Row row : rows) {
+            expected[(row.sellerId() - 1) / 40_000_000] += row.amount();
+        }
+        long best = 0;
+        List<Integer> bestSellers = new ArrayList<>();
+        for (int i = 0; i < expected.length; i++) {
+            int sellerId = 1 + i * 40_000_000;
+            assertEquals(expected[i], totals.amount(sellerId));
+            assertEquals(0, totals.amount(sellerId + 1));
+            if (expected[i] > best) {
+                best = expected[i];
+                bestSellers.clear();
+            }
+            if (expected[i] == best) {
+                bestSellers.add(sellerId);
+            }
+        }
+        assertEquals(bestSellers, totals.bestSellers());
+    }
+
+    @Test @DisplayName("Heap and off-heap stores match a row by row sum for random periods")
+    void testRandomPeriods() {
+        Random random = new Random(42);
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            int sellerId = 1 + random.nextInt(20);
+            LocalDateTime transactionDate = BASE.plusMinutes(random.nextInt(90 * 24 * 60));
+            int amount = 1 + random.nextInt(1_000);
+            rows.add(new Row(sellerId, transactionDate, amount, 1));
+            if (random.nextInt(10) == 0) {
+                rows.add(new Row(sellerId, transactionDate, -amount, -1));
+            }
+        }
+        ColumnStore heap = load(64, false, rows);
+        ColumnStore offHeap = load(64, true, rows);
+
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(90 * 24 * 60));
+            LocalDateTime end = start.plusMinutes(random.nextInt(30 * 24 * 60));
+            assertTotals(rows, heap, start, end);
+            assertTotals(rows, offHeap, start, end);
+        }
+    }
+
+    private static ColumnStore load(int chunkSize, boolean offHeap, List<Row> rows) {
+        ColumnStore store = new ColumnStore(chunkSize, offHeap);
+        for (Row row : rows) {
+            store.append(row.sellerId(), row.transactionDate(), row.amount(), row.count());
+        }
+        return store;
+    }
+
+    private static void assertTotals(List<Row> rows, ColumnStore store, LocalDateTime start, LocalDateTime end) {
+        long[] expected = new long[64];
+        for (Row row : rows) {
+            if (!row.transactionDate().isBefore(start) && row.transactionDate().isBefore(end)) {
+                expected[row.sellerId()] += row.amount();
+            }
+        }
+        ColumnStore.Totals totals = store.aggregate(start, end, pool);
+        for (int sellerId = 0; sellerId < expected.length; sellerId++) {
+            assertEquals(expected[sellerId], totals.amount(sellerId),
+                    "Seller " + sellerId + " in [" + start + ", " + end + ")");
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.task.Crm.Analytics;
+
+import com.task.Crm.DAO.SellerDAO;
+import com.task.Crm.DTO.SellerDTO;
+import com.task.Crm.DTO.TransactionPatchDTO;
+import com.task.Crm.Services.TransactionService;
+import com.task.Crm.util.PeriodRange;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class ColumnarSellerAnalyticsTests {
+    private static final EmbeddedPostgres postgres = startPostgres();
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int DAYS = 90;
+
+    @Autowired
+    private ColumnarSellerAnalytics columnarSellerAnalytics;
+
+    @Autowired
+    private SellerDAO sellerDAO;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .load()
+                .migrate();
+        JdbcTemplate jdbc = new JdbcTemplate(postgres.getPostgresDatabase());
+        for (int i = 1; i <= 8; i++) {
+            jdbc.update("insert into seller (name, contact_info, registration_date) values (?, ?, ?)",
+                    "seller-" + i, "seller" + i + "@example.com", BASE);
+        }
+        Random random = new Random(17);
+        List<Object[]> transactions = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            transactions.add(new Object[]{1 + random.nextInt(7), 1 + random.nextInt(1_000), "CARD",
+                    BASE.plusMinutes(random.nextInt(DAYS * 24 * 60))});
+        }
+        jdbc.batchUpdate("insert into transaction (seller_id, amount, payment_type, transaction_date) " +
+                "values (?, ?, ?, ?)", transactions);
+        jdbc.update("insert into seller_daily_revenue (seller_id, day, amount, transaction_count) " +
+                "select seller_id, cast(transaction_date as date), sum(amount), count(*) " +
+                "from transaction group by seller_id, cast(transaction_date as date)");
+
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("crm.analytics.backend", () -> "columnar");
+        registry.add("crm.analytics.columnar.chunk-size", () -> "64");
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        postgres.close();
+    }
+
+    @Test @DisplayName("Columnar backend matches the SQL backend for random periods")
+    void testMatchesSqlBackend() {
+        assertMatchesSqlBackend(new Random(23));
+    }
+
+    @Test @DisplayName("Columnar backend follows writes and reloads to the same state")
+    void testWritesAndReload() {
+        List<Integer> ids = jdbcTemplate.queryForList("select id from transaction where seller_id = 7 " +
+                "order by id limit 3", Integer.class);
+        transactionService.update(ids.get(0), new TransactionPatchDTO(null, 50_000, null, null));
+        transactionService.update(ids.get(1), new TransactionPatchDTO(null, null, null,
+                new SellerDTO(8, "seller-8", "seller8@example.com")));
+        transactionService.delete(ids.get(2));
+        assertMatchesSqlBackend(new Random(29));
+
+        columnarSellerAnalytics.reload();
+        assertMatchesSqlBackend(new Random(29));
+    }
+
+    private void assertMatchesSqlBackend(Random random) {
+        for (int i = 0; i < 50; i++) {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(DAYS * 24 * 60));
+            LocalDateTime end = i % 5 == 0
+                    ? start.toLocalDate().plusDays(1 + random.nextInt(30)).atStartOfDay()
+                    : start.plusMinutes(random.nextInt(30 * 24 * 60));
+            PeriodRange period = new PeriodRange(start, end);
+            double amount = random.nextInt(200_000);
+
+            assertEquals(ids(sellerDAO.getBestSellerForPeriod(period)),
+                    ids(columnarSellerAnalytics.getBestSellerForPeriod(period)), "Best sellers for " + period);
+            assertEquals(ids(sellerDAO.getSellersBelowAmountForPeriod(amount, period)),
+                    ids(columnarSellerAnalytics.getSellersBelowAmountForPeriod(amount, period)),
+                    "Sellers below " + amount + " for " + period);
+        }
+    }
+
+    private static List<Integer> ids(List<SellerDTO> sellers) {
+        return sellers.stream()
+                .map(SellerDTO::getId)
+                .sorted()
+                .toList();
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.task.Crm.Analytics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SellerRevenueIndexTests {
+    private static final LocalDate BASE = LocalDate.of(2024, 1, 10);
+
+    private record Row(int sellerId, LocalDate day, long amount, long count) {}
+
+    @Test @DisplayName("Range totals survive growing past the capacity and moving the base day back")
+    void testRangeTotalsAcrossResizes() {
+        SellerRevenueIndex index = new SellerRevenueIndex(BASE, 4);
+        List<Row> rows = new ArrayList<>();
+        add(index, rows, new Row(1, BASE, 10, 1));
+        add(index, rows, new Row(1, BASE.plusDays(3), 20, 1));
+        assertTotals(index, rows);
+
+        add(index, rows, new Row(2, BASE.plusDays(4), 40, 1));
+        assertTotals(index, rows);
+        add(index, rows, new Row(1, BASE.plusDays(30), 80, 1));
+        assertTotals(index, rows);
+
+        add(index, rows, new Row(2, BASE.minusDays(1), 160, 1));
+        assertTotals(index, rows);
+        add(index, rows, new Row(1, BASE.minusDays(45), 320, 1));
+        assertTotals(index, rows);
+    }
+
+    @Test @DisplayName("Range totals match a day by day sum for random rows")
+    void testRandomRows() {
+        Random random = new Random(11);
+        SellerRevenueIndex index = new SellerRevenueIndex(BASE, 8);
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            int sellerId = 1 + random.nextInt(10);
+            LocalDate day = BASE.plusDays(random.nextInt(400) - 100);
+            long amount = 1 + random.nextInt(1_000);
+            add(index, rows, new Row(sellerId, day, amount, 1));
+            if (random.nextInt(5) == 0) {
+                add(index, rows, new Row(sellerId, day, -amount, -1));
+            }
+            if (i % 50 == 0) {
+                assertTotals(index, rows);
+            }
+        }
+        assertTotals(index, rows);
+    }
+
+    @Test @DisplayName("Sellers without rows are reported with zero totals until removed")
+    void testSellersWithoutRows() {
+        SellerRevenueIndex index = new SellerRevenueIndex(BASE, 4);
+        index.addSeller(1);
+        index.addSeller(2);
+        index.add(2, BASE.plusDays(1), 70, 1);
+
+        Map<Integer, long[]> totals = totals(index, BASE, BASE.plusDays(2));
+        assertEquals(2, totals.size());
+        assertEquals(List.of(0L, 0L), List.of(totals.get(1)[0], totals.get(1)[1]));
+        assertEquals(List.of(70L, 1L), List.of(totals.get(2)[0], totals.get(2)[1]));
+
+        index.removeSeller(2);
+        assertEquals(List.of(1), List.copyOf(totals(index, BASE, BASE.plusDays(2)).keySet()));
+        assertEquals(1, index.sellers());
+    }
+
+    private static void add(SellerRevenueIndex index, List<Row> rows, Row row) {
+        index.add(row.sellerId(), row.day(), row.amount(), row.count());
+        rows.add(row);
+    }
+
+    private static void assertTotals(SellerRevenueIndex index, List<Row> rows) {
+        LocalDate first = rows.stream().map(Row::day).min(LocalDate::compareTo).orElseThrow().minusDays(2);
+        LocalDate last = rows.stream().map(Row::day).max(LocalDate::compareTo).orElseThrow().plusDays(2);
+        int step = Math.max(1, (int) (last.toEpochDay() - first.toEpochDay()) / 40);
+        for (LocalDate from = first; !from.isAfter(last); from = from.plusDays(step)) {
+            for (LocalDate to = from; !to.isAfter(last); to = to.plusDays(step)) {
+                Map<Integer, long[]> totals = totals(index, from, to);
+                Map<Integer, long[]> expected = new HashMap<>();
+                for (Row row : rows) {
+                    long[] total = expected.computeIfAbsent(row.sellerId(), sellerId -> new long[2]);
+                    if (!row.day().isBefore(from) && row.day().isBefore(to)) {
+                        total[0] += row.amount();
+                        total[1] += row.count();
+                    }
+                }
+                assertEquals(expected.keySet(), totals.keySet());
+                for (Map.Entry<Integer, long[]> entry : expected.entrySet()) {
+                    String range = "Seller " + entry.getKey() + " in [" + from + ", " + to + ")";
+                    assertEquals(entry.getValue()[0], totals.get(entry.getKey())[0], range);
+                    assertEquals(entry.getValue()[1], totals.get(entry.getKey())[1], range);
+                }
+            }
+        }
+    }
+
+    private static Map<Integer, long[]> totals(SellerRevenueIndex index, LocalDate from, LocalDate to) {
+        Map<Integer, long[]> totals = new HashMap<>();
+        index.forEachTotal(from, to, (sellerId, amount, count) -> totals.put(sellerId, new long[]{amount, count}));
+        return totals;
+    }
+}
@@ -0,0 +1,67 @@
+package com.task.Crm.Config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadGuardedCaffeineCacheTests {
+    private final LoadGuardedCaffeineCache cache = new LoadGuardedCaffeineCache("sellers",
+            Caffeine.newBuilder().maximumSize(100).build(), false);
+
+    @Test @DisplayName("Concurrent misses of one key run the loader once")
+    void testConcurrentMissesLoadOnce() throws Exception {
+        int threads = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> cache.get(1, () -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    assertTrue(release.await(10, TimeUnit.SECONDS));
+                    return "seller-1";
+                })));
+            }
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            // Gives the other threads time to miss and queue up behind the running load.
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("seller-1", result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals("seller-1", cache.get(1, String.class));
+    }
+
+    @Test @DisplayName("A value loaded across an evict is returned but not stored")
+    void testEvictDuringLoad() {
+        String value = cache.get(1, () -> {
+            cache.evict(2);
+            return "seller-1";
+        });
+        assertEquals("seller-1", value);
+        assertNull(cache.get(1));
+
+        assertEquals("seller-1", cache.get(1, () -> "seller-1"));
+        assertEquals("seller-1", cache.get(1, String.class));
+    }
+}
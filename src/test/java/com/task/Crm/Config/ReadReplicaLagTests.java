@@ -0,0 +1,120 @@
+package com.task.Crm.Config;
+
+import com.task.Crm.DTO.SellerDTO;
+import com.task.Crm.Models.Seller;
+import com.task.Crm.Services.SellerService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ReadReplicaLagTests {
+    private static final EmbeddedPostgres primary = startPostgres();
+    private static final EmbeddedPostgres replica = startPostgres();
+
+    @Autowired
+    private SellerService sellerService;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        Flyway.configure()
+                .dataSource(replica.getPostgresDatabase())
+                .load()
+                .migrate();
+        // The embedded replica is a standalone server, so the lag query's functions are shadowed by ones
+        // that report a replica whose replay timestamp lags by replica_lag.seconds.
+        JdbcTemplate replicaJdbc = new JdbcTemplate(replica.getPostgresDatabase());
+        replicaJdbc.execute("create table replica_lag (seconds integer not null)");
+        replicaJdbc.execute("insert into replica_lag values (0)");
+        replicaJdbc.execute("create function public.pg_is_in_recovery() returns boolean " +
+                "language sql as 'select true'");
+        replicaJdbc.execute("create function public.pg_last_wal_receive_lsn() returns pg_lsn " +
+                "language sql as $$select '0/2'::pg_lsn$$");
+        replicaJdbc.execute("create function public.pg_last_wal_replay_lsn() returns pg_lsn " +
+                "language sql as $$select '0/1'::pg_lsn$$");
+        replicaJdbc.execute("create function public.pg_last_xact_replay_timestamp() returns timestamptz " +
+                "language sql as 'select now() - make_interval(secs => (select seconds from replica_lag))'");
+        replicaJdbc.execute("alter database postgres set search_path = public, pg_catalog");
+
+        registry.add("spring.datasource.url", () -> primary.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("crm.datasource.replica.enabled", () -> "true");
+        registry.add("crm.datasource.replica.urls", () -> replica.getJdbcUrl("postgres", "postgres"));
+        registry.add("crm.datasource.replica.max-lag", () -> "5s");
+        registry.add("crm.datasource.replica.lag-check-interval", () -> "100ms");
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        primary.close();
+        replica.close();
+    }
+
+    @Test @DisplayName("Read-only transactions fall back to the primary while the replica lags")
+    void testLaggingReplicaFallsBackToPrimary() throws InterruptedException {
+        JdbcTemplate replicaJdbc = new JdbcTemplate(replica.getPostgresDatabase());
+        replicaJdbc.update("insert into seller (name, contact_info, registration_date) " +
+                "values ('lagging-replica-only', 'lag@example.com', now())");
+        assertTrue(awaitReplicaReads(true), "Reads should use the replica while it is within max-lag");
+
+        try {
+            replicaJdbc.update("update replica_lag set seconds = 60");
+            assertTrue(awaitReplicaReads(false), "Reads should use the primary while the replica lags");
+            for (int i = 0; i < 10; i++) {
+                assertTrue(sellerService.findAll().stream()
+                        .map(SellerDTO::getName)
+                        .noneMatch("lagging-replica-only"::equals));
+            }
+        } finally {
+            replicaJdbc.update("update replica_lag set seconds = 0");
+        }
+        assertTrue(awaitReplicaReads(true), "Reads should return to the replica once it catches up");
+    }
+
+    @Test @DisplayName("Seller cache is filled from the primary")
+    void testSellerCacheFillsFromPrimary() {
+        Seller seller = new Seller("cached@example.com", "primary-cached");
+        sellerService.save(seller);
+
+        assertEquals("primary-cached", sellerService.findById(seller.getId()).getName());
+        assertEquals(seller.getId(), sellerService.findByName("primary-cached").getId());
+        assertEquals(0, new JdbcTemplate(replica.getPostgresDatabase()).queryForObject(
+                "select count(*) from seller where name = 'primary-cached'", Integer.class));
+    }
+
+    private boolean awaitReplicaReads(boolean replicaExpected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            boolean replicaRead = sellerService.findAll().stream()
+                    .map(SellerDTO::getName)
+                    .anyMatch("lagging-replica-only"::equals);
+            if (replicaRead == replicaExpected) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.task.Crm.Config;
+
+import com.task.Crm.DTO.SellerDTO;
+import com.task.Crm.Models.Seller;
+import com.task.Crm.Services.SellerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ReadReplicaRoutingTests {
+    private static final EmbeddedPostgres primary = startPostgres();
+    private static final EmbeddedPostgres replica = startPostgres();
+
+    @Autowired
+    private SellerService sellerService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        Flyway.configure()
+                .dataSource(replica.getPostgresDatabase())
+                .load()
+                .migrate();
+        registry.add("spring.datasource.url", () -> primary.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("crm.datasource.replica.enabled", () -> "true");
+        registry.add("crm.datasource.replica.urls", () -> replica.getJdbcUrl("postgres", "postgres"));
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        primary.close();
+        replica.close();
+    }
+
+    @Test @DisplayName("Read-only transactions are served by the replica")
+    void testReadOnlyTransactionUsesReplica() {
+        new JdbcTemplate(replica.getPostgresDatabase()).update("insert into seller (name, contact_info, registration_date) " +
+                "values ('replica-only', 'replica@example.com', now())");
+
+        assertTrue(sellerService.findAll().stream()
+                .map(SellerDTO::getName)
+                .anyMatch("replica-only"::equals));
+    }
+
+    @Test @DisplayName("Write transactions stay on the primary")
+    void testWriteTransactionUsesPrimary() {
+        sellerService.save(new Seller("primary@example.com", "primary-only"));
+
+        String countQuery = "select count(*) from seller where name = 'primary-only'";
+        assertEquals(1, new JdbcTemplate(primary.getPostgresDatabase()).queryForObject(countQuery, Integer.class));
+        assertEquals(0, new JdbcTemplate(replica.getPostgresDatabase()).queryForObject(countQuery, Integer.class));
+    }
+
+    @Test @DisplayName("The primary and the replica pools get their own bulkheads sized to the pool")
+    void testBulkheadPerPool() {
+        sellerService.findAll();
+        sellerService.save(new Seller("bulkhead@example.com", "bulkhead-pools"));
+
+        for (String pool : List.of("crm-primary", "crm-replica-0")) {
+            assertEquals(10, meterRegistry.get("crm.db.bulkhead.available").tag("datasource", pool).gauge().value());
+        }
+        assertTrue(meterRegistry.find("crm.db.bulkhead.available").tag("datasource", "dataSource").gauges().isEmpty());
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.task.Crm.DAO;
+
+import com.task.Crm.SqlStatementCounter;
+import com.task.Crm.util.PeriodRange;
+import com.task.Crm.util.TransactionCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+@Import(SqlStatementCounter.class)
+class SellerDAOQueryPlanTests {
+    private static final Pattern TRANSACTION_DATE_INDEX_COND = Pattern.compile("Index Cond: .*\\btransaction_date\\b");
+    private static final Pattern DAY_INDEX_COND = Pattern.compile("Index Cond: .*\\bday\\b");
+    private static final Pattern KEYSET_INDEX_COND =
+            Pattern.compile("Index Cond: .*ROW\\(transaction_date, id\\) < ROW\\(");
+    private static final PeriodRange PERIOD = new PeriodRange(LocalDateTime.of(2024, 1, 1, 10, 0),
+            LocalDateTime.of(2024, 3, 31, 18, 0));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SellerDAO sellerDAO;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("set local enable_seqscan = off");
+    }
+
+    @Test @DisplayName("Best seller query uses indexes for the period range")
+    void testBestSellersQueryPlan() {
+        String plan = explain(() -> sellerDAO.getBestSellerForPeriod(PERIOD));
+        assertIndexCond(plan, TRANSACTION_DATE_INDEX_COND);
+        assertIndexCond(plan, DAY_INDEX_COND);
+    }
+
+    @Test @DisplayName("Sellers below amount query uses indexes for the period range")
+    void testSellersBelowAmountQueryPlan() {
+        String plan = explain(() -> sellerDAO.getSellersBelowAmountForPeriod(500, PERIOD));
+        assertIndexCond(plan, TRANSACTION_DATE_INDEX_COND);
+        assertIndexCond(plan, DAY_INDEX_COND);
+    }
+
+    @Test @DisplayName("Partial day revenue query uses indexes for the period edges")
+    void testPartialDayRevenueQueryPlan() {
+        String plan = explain(() -> sellerDAO.getPartialDayRevenue(PERIOD));
+        assertIndexCond(plan, TRANSACTION_DATE_INDEX_COND);
+    }
+
+    @Test @DisplayName("Seller transaction page continues after the cursor as an index range")
+    void testSellerTransactionsKeysetQueryPlan() {
+        TransactionCursor cursor = new TransactionCursor(LocalDateTime.of(2024, 3, 1, 12, 0), 1000);
+        String plan = explain(() -> sellerDAO.getTransactions(1, cursor, null, null, null, 50));
+        assertIndexCond(plan, KEYSET_INDEX_COND);
+        assertFalse(plan.contains("Sort"), plan);
+    }
+
+    private String explain(Runnable daoCall) {
+        sqlStatementCounter.reset();
+        daoCall.run();
+        List<SqlStatementCounter.Statement> executed = sqlStatementCounter.getStatements();
+        assertEquals(1, executed.size(), () -> "Expected one statement, got " + executed);
+
+        SqlStatementCounter.Statement statement = executed.get(0);
+        String plan = String.join("\n", jdbcTemplate.queryForList("explain " + statement.sql(), String.class,
+                statement.parameters()));
+        assertFalse(plan.contains("Seq Scan on transaction"), plan);
+        assertFalse(plan.contains("Seq Scan on seller_daily_revenue"), plan);
+        return plan;
+    }
+
+    private void assertIndexCond(String plan, Pattern indexCond) {
+        assertTrue(indexCond.matcher(plan).find(), () -> "No " + indexCond + " in plan:\n" + plan);
+    }
+}
@@ -0,0 +1,112 @@
+package com.task.Crm.Events;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReloadBarrierTests {
+    private final ReloadBarrier barrier = new ReloadBarrier();
+    private final AtomicReference<List<String>> state = new AtomicReference<>(new ArrayList<>());
+
+    @Test @DisplayName("Changes committed after the snapshot are replayed on the reloaded state")
+    void testReplayAfterSwap() {
+        barrier.pin(() -> {});
+        commit("after snapshot");
+        assertEquals(List.of(), state.get());
+
+        barrier.replay(() -> state.set(new ArrayList<>(List.of("snapshot"))));
+        assertEquals(List.of("snapshot", "after snapshot"), state.get());
+
+        commit("after reload");
+        assertEquals(List.of("snapshot", "after snapshot", "after reload"), state.get());
+    }
+
+    @Test @DisplayName("A snapshot waits for a commit in flight, whose change is not replayed")
+    void testSnapshotWaitsForCommit() throws Exception {
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                barrier.afterCommit(() -> state.get().add("in flight"));
+                TransactionSynchronizationUtils.triggerBeforeCommit(false);
+                committing.countDown();
+                await(release);
+                TransactionSynchronizationUtils.triggerAfterCommit();
+                TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        });
+        await(committing);
+
+        CompletableFuture<Void> snapshot = CompletableFuture.runAsync(() -> barrier.pin(() -> {}));
+        assertThrows(TimeoutException.class, () -> snapshot.get(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        writer.get(5, TimeUnit.SECONDS);
+        snapshot.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("in flight"), state.get());
+
+        barrier.replay(() -> state.set(new ArrayList<>(List.of("snapshot"))));
+        assertEquals(List.of("snapshot"), state.get());
+    }
+
+    @Test @DisplayName("A failed reload applies the buffered changes to the current state")
+    void testCancel() {
+        barrier.pin(() -> {});
+        commit("buffered");
+        barrier.cancel();
+        assertEquals(List.of("buffered"), state.get());
+    }
+
+    @Test @DisplayName("Rolled back changes are not applied and do not hold the barrier")
+    void testRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            barrier.afterCommit(() -> state.get().add("rolled back"));
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        barrier.pin(() -> {});
+        barrier.replay(() -> {});
+        assertFalse(state.get().contains("rolled back"));
+    }
+
+    private void commit(String change) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            barrier.afterCommit(() -> state.get().add(change));
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Timed out");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.task.Crm.Services;
+
+import com.task.Crm.DAO.ImportDAO;
+import com.task.Crm.DTO.ImportJobDTO;
+import com.task.Crm.DTO.TransactionChangeDTO;
+import com.task.Crm.DTO.TransactionChangePageDTO;
+import com.task.Crm.Models.Seller;
+import com.task.Crm.Models.Transaction;
+import com.task.Crm.util.ImportTarget;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ImportServiceTests {
+    private static final EmbeddedPostgres postgres = startPostgres();
+    private static final LocalDate FIRST_DAY = LocalDate.of(2023, 3, 1);
+    private static final String TRANSACTIONS_CSV = """
+            seller_id,amount,payment_type,transaction_date
+            1,100,CARD,2023-03-01 10:15:30
+            1,200,CASH,2023-03-01T23:59:59.5
+            2,"300","CARD, online",2023-03-02
+            999999,50,CARD,2023-03-01
+            1,abc,CARD,2023-03-01
+            2,70,CARD,2023-02-30
+            2,-40,CARD,2023-03-02 08:00
+            1,10,"multi
+            line",2023-03-03
+            """;
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private ImportDAO importDAO;
+
+    @Autowired
+    private AnalyticsCache analyticsCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private VersionRegistry versionRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TransactionChangeFeed transactionChangeFeed;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .load()
+                .migrate();
+        JdbcTemplate jdbc = new JdbcTemplate(postgres.getPostgresDatabase());
+        for (int i = 1; i <= 2; i++) {
+            jdbc.update("insert into seller (name, contact_info, registration_date) values (?, ?, ?)",
+                    "seller-" + i, "seller" + i + "@example.com", FIRST_DAY.atStartOfDay());
+        }
+
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("crm.import.chunk-size", () -> "4");
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        postgres.close();
+    }
+
+    @Test @DisplayName("Transactions are imported through COPY with rejects, ids, rollup and change log")
+    void testImportTransactionsByCopy() {
+        assertTransactionsImported(importService, "COPY");
+    }
+
+    @Test @DisplayName("Transactions are imported through JDBC batches when COPY is turned off")
+    void testImportTransactionsByBatches() {
+        ImportService batchImportService = batchImportService();
+        try {
+            assertTransactionsImported(batchImportService, "BATCH");
+        } finally {
+            batchImportService.destroy();
+        }
+    }
+
+    @Test @DisplayName("Sellers are imported through COPY and batches with duplicate names rejected across chunks")
+    void testImportSellers() {
+        assertSellersImported(importService, "COPY", "copied");
+        ImportService batchImportService = batchImportService();
+        try {
+            assertSellersImported(batchImportService, "BATCH", "batched");
+        } finally {
+            batchImportService.destroy();
+        }
+    }
+
+    @Test @DisplayName("The change feed delivers a concurrent write while a file is still being loaded")
+    void testChangeFeedDuringLoad() throws InterruptedException {
+        CountDownLatch paused = new CountDownLatch(1);
+        CountDownLatch resumed = new CountDownLatch(1);
+        ImportDAO pausingImportDAO = new ImportDAO(entityManager) {
+            private int segments;
+
+            // Pauses at the start of the second segment, after the staging table and the first segment committed.
+            @Override
+            public long copy(ImportTarget target, UUID jobId, InputStream input, boolean header) {
+                if (++segments == 2) {
+                    paused.countDown();
+                    try {
+                        resumed.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.copy(target, jobId, input, header);
+            }
+        };
+        ImportService pausingImportService = new ImportService(pausingImportDAO, analyticsCache, eventPublisher,
+                versionRegistry, transactionManager, "copy", 3, 4, 100, "", Duration.ofHours(1));
+        try {
+            ImportJobDTO job = pausingImportService.submitUpload(ImportTarget.TRANSACTIONS,
+                    new ByteArrayInputStream(TRANSACTIONS_CSV.getBytes(StandardCharsets.UTF_8)));
+            assertTrue(paused.await(10, TimeUnit.SECONDS), "The load did not reach its second segment");
+
+            int saved = saveTransaction();
+            assertEquals("LOADING", pausingImportService.getStatus(UUID.fromString(job.getId())).getStatus());
+            assertTrue(changedTransactionIds().contains(saved), "Transaction " + saved + " is not in the feed");
+
+            resumed.countDown();
+            job = awaitImport(pausingImportService, job);
+            assertEquals("COMPLETED", job.getStatus(), job.getError());
+            assertEquals(8, job.getRowsRead());
+            assertEquals(5, job.getRowsImported());
+            assertStagingDropped();
+        } finally {
+            resumed.countDown();
+            pausingImportService.destroy();
+        }
+    }
+
+    private void assertTransactionsImported(ImportService service, String method) {
+        Set<Integer> before = new HashSet<>(jdbcTemplate.queryForList("select id from transaction", Integer.class));
+        Map<String, List<Long>> rollupBefore = rollup();
+        int savedBefore = saveTransaction();
+
+        ImportJobDTO job = importCsv(service, ImportTarget.TRANSACTIONS, TRANSACTIONS_CSV);
+        assertEquals("COMPLETED", job.getStatus(), job.getError());
+        assertEquals(method, job.getMethod());
+        assertEquals(8, job.getRowsRead());
+        assertEquals(5, job.getRowsImported());
+        assertEquals(3, job.getRowsRejected());
+        assertEquals(List.of("4 Seller not found", "5 Incorrect amount", "6 Incorrect transaction date"),
+                rejects(job));
+
+        List<Integer> ids = jdbcTemplate.queryForList("select id from transaction " +
+                "where payment_type is distinct from 'HIBERNATE' order by id", Integer.class).stream()
+                .filter(id -> !before.contains(id))
+                .toList();
+        assertEquals(List.of(
+                List.of(1, 100, "CARD", LocalDateTime.of(2023, 3, 1, 10, 15, 30)),
+                List.of(1, 200, "CASH", LocalDateTime.of(2023, 3, 1, 23, 59, 59, 500_000_000)),
+                List.of(2, 300, "CARD, online", LocalDateTime.of(2023, 3, 2, 0, 0)),
+                List.of(2, -40, "CARD", LocalDateTime.of(2023, 3, 2, 8, 0)),
+                List.of(1, 10, "multi\nline", LocalDateTime.of(2023, 3, 3, 0, 0))), rows(ids));
+
+        long lastValue = jdbcTemplate.queryForObject("select last_value from transaction_id_seq", Long.class);
+        assertTrue(ids.stream().allMatch(id -> id <= lastValue), "Ids " + ids + " above " + lastValue);
+        assertFalse(ids.contains(savedBefore));
+        int savedAfter = saveTransaction();
+        assertFalse(ids.contains(savedAfter));
+
+        for (int id : ids) {
+            assertEquals(1, jdbcTemplate.queryForObject("select count(*) from transaction_change_log " +
+                    "where operation = 'INSERT' and transaction_id = ?", Integer.class, id));
+        }
+        Map<String, List<Long>> rollupAfter = rollup();
+        assertEquals(List.of(300L, 2L), delta(rollupBefore, rollupAfter, 1, FIRST_DAY));
+        assertEquals(List.of(260L, 2L), delta(rollupBefore, rollupAfter, 2, FIRST_DAY.plusDays(1)));
+        assertEquals(List.of(10L, 1L), delta(rollupBefore, rollupAfter, 1, FIRST_DAY.plusDays(2)));
+        assertEquals(List.of(0L, 0L), delta(rollupBefore, rollupAfter, 2, FIRST_DAY));
+        assertStagingDropped();
+    }
+
+    private void assertSellersImported(ImportService service, String method, String prefix) {
+        String csv = """
+                name,contact_info,registration_date
+                %1$s-1,one@example.com,2022-05-06 07:08:09
+                %1$s-2,two@example.com,
+                ,empty@example.com,2022-01-01
+                %1$s-3,three@example.com,2023-02-29
+                %1$s-1,duplicate@example.com,2022-01-01
+                %1$s-4,four@example.com,2024-02-29
+                %1$s-4,duplicate@example.com,2024-03-01
+                """.formatted(prefix);
+
+        ImportJobDTO job = importCsv(service, ImportTarget.SELLERS, csv);
+        assertEquals("COMPLETED", job.getStatus(), job.getError());
+        assertEquals(method, job.getMethod());
+        assertEquals(7, job.getRowsRead());
+        assertEquals(3, job.getRowsImported());
+        assertEquals(4, job.getRowsRejected());
+        assertEquals(List.of("3 Name is empty", "4 Incorrect registration date",
+                "5 Seller with this name already exists", "7 Seller with this name already exists"), rejects(job));
+
+        assertEquals(LocalDateTime.of(2022, 5, 6, 7, 8, 9), registrationDate(prefix + "-1"));
+        assertNotNull(registrationDate(prefix + "-2"));
+        assertEquals(LocalDateTime.of(2024, 2, 29, 0, 0), registrationDate(prefix + "-4"));
+        assertEquals(List.of("one@example.com", "four@example.com"), jdbcTemplate.queryForList(
+                "select contact_info from seller where name in (?, ?) order by id", String.class,
+                prefix + "-1", prefix + "-4"));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from seller where name = ?", Integer.class,
+                prefix + "-3"));
+        assertStagingDropped();
+    }
+
+    private LocalDateTime registrationDate(String name) {
+        return jdbcTemplate.queryForObject("select registration_date from seller where name = ?",
+                (resultSet, row) -> resultSet.getObject(1, LocalDateTime.class), name);
+    }
+
+    private ImportService batchImportService() {
+        return new ImportService(importDAO, analyticsCache, eventPublisher, versionRegistry, transactionManager,
+                "batch", 3, 4, 100, "", Duration.ofHours(1));
+    }
+
+    private static ImportJobDTO importCsv(ImportService service, ImportTarget target, String csv) {
+        return awaitImport(service, service.submitUpload(target,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static ImportJobDTO awaitImport(ImportService service, ImportJobDTO job) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!"COMPLETED".equals(job.getStatus()) && !"FAILED".equals(job.getStatus())) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Import " + job.getId() + " is still " + job.getStatus());
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            job = service.getStatus(UUID.fromString(job.getId()));
+        }
+        return job;
+    }
+
+    private static List<String> rejects(ImportJobDTO job) {
+        return job.getRejects().stream()
+                .map(reject -> reject.getRow() + " " + reject.getReason())
+                .toList();
+    }
+
+    private int saveTransaction() {
+        Transaction transaction = new Transaction(5, "HIBERNATE", null);
+        transaction.setSeller(new Seller(1, "seller-1", "seller1@example.com", FIRST_DAY.atStartOfDay()));
+        transactionService.save(transaction);
+        return transaction.getId();
+    }
+
+    private Set<Integer> changedTransactionIds() {
+        Set<Integer> ids = new HashSet<>();
+        String cursor = null;
+        while (true) {
+            TransactionChangePageDTO page = (TransactionChangePageDTO) transactionChangeFeed.poll(cursor, 1000, null)
+                    .getResult();
+            if (page.getChanges().isEmpty()) {
+                return ids;
+            }
+            page.getChanges().stream()
+                    .map(TransactionChangeDTO::getTransactionId)
+                    .forEach(ids::add);
+            cursor = page.getNextCursor();
+        }
+    }
+
+    private List<List<Object>> rows(List<Integer> ids) {
+        return ids.stream()
+                .map(id -> jdbcTemplate.queryForObject("select seller_id, amount, payment_type, transaction_date " +
+                                "from transaction where id = ?",
+                        (resultSet, row) -> List.<Object>of(resultSet.getInt(1), resultSet.getInt(2),
+                                resultSet.getString(3), resultSet.getObject(4, LocalDateTime.class)), id))
+                .toList();
+    }
+
+    private Map<String, List<Long>> rollup() {
+        Map<String, List<Long>> rollup = new HashMap<>();
+        jdbcTemplate.query("select seller_id, day, amount, transaction_count from seller_daily_revenue",
+                resultSet -> {
+                    rollup.put(resultSet.getInt(1) + " " + resultSet.getObject(2, LocalDate.class),
+                            List.of(resultSet.getLong(3), resultSet.getLong(4)));
+                });
+        return rollup;
+    }
+
+    private static List<Long> delta(Map<String, List<Long>> before, Map<String, List<Long>> after,
+                                    int sellerId, LocalDate day) {
+        List<Long> zero = List.of(0L, 0L);
+        List<Long> from = before.getOrDefault(sellerId + " " + day, zero);
+        List<Long> to = after.getOrDefault(sellerId + " " + day, zero);
+        return List.of(to.get(0) - from.get(0), to.get(1) - from.get(1));
+    }
+
+    private void assertStagingDropped() {
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from pg_class " +
+                "where relname like 'transaction\\_import\\_%' or relname like 'seller\\_import\\_%'", Integer.class));
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.task.Crm.Services;
+
+import com.task.Crm.DTO.SellerOffboardResultDTO;
+import com.task.Crm.Events.TransactionChangedEvent;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class SellerOffboardingServiceTests {
+    private static final EmbeddedPostgres postgres = startPostgres();
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 5, 1, 9, 0);
+    private static final String TRANSACTION_COLUMNS = "id, seller_id, amount, payment_type, transaction_date";
+
+    @Autowired
+    private SellerOffboardingService sellerOffboardingService;
+
+    @Autowired
+    private ChunkRecorder chunkRecorder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .load()
+                .migrate();
+        JdbcTemplate jdbc = new JdbcTemplate(postgres.getPostgresDatabase());
+        int[] transactions = {20, 15, 10, 0};
+        for (int i = 0; i < transactions.length; i++) {
+            int sellerId = jdbc.queryForObject("insert into seller (name, contact_info, registration_date) " +
+                    "values (?, ?, ?) returning id", Integer.class, "seller-" + (i + 1),
+                    "seller" + (i + 1) + "@example.com", BASE);
+            List<Object[]> rows = new ArrayList<>();
+            for (int j = 0; j < transactions[i]; j++) {
+                rows.add(new Object[]{sellerId, 10 * (j + 1), j % 2 == 0 ? "CARD" : "CASH", BASE.plusHours(9L * j)});
+            }
+            jdbc.batchUpdate("insert into transaction (seller_id, amount, payment_type, transaction_date) " +
+                    "values (?, ?, ?, ?)", rows);
+        }
+        jdbc.update("insert into seller_daily_revenue (seller_id, day, amount, transaction_count) " +
+                "select seller_id, cast(transaction_date as date), sum(amount), count(*) " +
+                "from transaction group by seller_id, cast(transaction_date as date)");
+
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("crm.sellers.offboard.seller-chunk-size", () -> "2");
+        registry.add("crm.sellers.offboard.transaction-chunk-size", () -> "7");
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        postgres.close();
+    }
+
+    @Test @DisplayName("Archiving offboard moves transactions in chunks and keeps the rollup in step")
+    void testOffboardWithArchive() {
+        List<Map<String, Object>> transactions = jdbcTemplate.queryForList("select " + TRANSACTION_COLUMNS + " " +
+                "from transaction where seller_id in (1, 2) order by id");
+        List<Map<String, Object>> sellers = jdbcTemplate.queryForList("select id, name, contact_info, " +
+                "registration_date from seller where id in (1, 2, 4) order by id");
+        assertEquals(35, transactions.size());
+
+        SellerOffboardResultDTO result = sellerOffboardingService.offboard(List.of(4, 2, 1, 999, 2), true);
+        assertEquals(3, result.getSellers());
+        assertEquals(35, result.getTransactions());
+        assertTrue(result.isArchived());
+        assertEquals(List.of(999), result.getNotFound());
+
+        List<ChunkRecorder.Chunk> chunks = chunkRecorder.chunksOf(Set.of(1, 2));
+        assertEquals(List.of(7, 7, 7, 7, 7), chunks.stream().map(ChunkRecorder.Chunk::size).toList());
+        assertTrue(chunks.stream().allMatch(ChunkRecorder.Chunk::rollupMatches), "Rollup out of step: " + chunks);
+
+        assertEquals(transactions, jdbcTemplate.queryForList("select " + TRANSACTION_COLUMNS + " " +
+                "from transaction_archive where seller_id in (1, 2) order by id"));
+        assertEquals(sellers, jdbcTemplate.queryForList("select id, name, contact_info, registration_date " +
+                "from seller_archive where id in (1, 2, 4) order by id"));
+        assertRemoved(List.of(1, 2, 4), transactions);
+    }
+
+    @Test @DisplayName("Deleting offboard removes transactions in chunks without archiving them")
+    void testOffboardWithoutArchive() {
+        List<Map<String, Object>> transactions = jdbcTemplate.queryForList("select " + TRANSACTION_COLUMNS + " " +
+                "from transaction where seller_id = 3 order by id");
+        assertEquals(10, transactions.size());
+
+        SellerOffboardResultDTO result = sellerOffboardingService.offboard(List.of(3), false);
+        assertEquals(1, result.getSellers());
+        assertEquals(10, result.getTransactions());
+        assertEquals(List.of(), result.getNotFound());
+
+        List<ChunkRecorder.Chunk> chunks = chunkRecorder.chunksOf(Set.of(3));
+        assertEquals(List.of(7, 3), chunks.stream().map(ChunkRecorder.Chunk::size).toList());
+        assertTrue(chunks.stream().allMatch(ChunkRecorder.Chunk::rollupMatches), "Rollup out of step: " + chunks);
+
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from transaction_archive where seller_id = 3",
+                Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from seller_archive where id = 3",
+                Integer.class));
+        assertRemoved(List.of(3), transactions);
+    }
+
+    private void assertRemoved(List<Integer> sellerIds, List<Map<String, Object>> transactions) {
+        for (int sellerId : sellerIds) {
+            assertEquals(0, jdbcTemplate.queryForObject("select count(*) from seller where id = ?",
+                    Integer.class, sellerId));
+            assertEquals(0, jdbcTemplate.queryForObject("select count(*) from transaction where seller_id = ?",
+                    Integer.class, sellerId));
+            assertEquals(0, jdbcTemplate.queryForObject("select count(*) from seller_daily_revenue " +
+                    "where seller_id = ?", Integer.class, sellerId));
+        }
+        List<Integer> logged = new ArrayList<>();
+        for (int sellerId : sellerIds) {
+            logged.addAll(jdbcTemplate.queryForList("select transaction_id from transaction_change_log " +
+                    "where operation = 'DELETE' and seller_id = ?", Integer.class, sellerId));
+        }
+        assertEquals(transactions.stream().map(row -> (Integer) row.get("id")).sorted().toList(),
+                logged.stream().sorted().toList());
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @TestConfiguration
+    static class ChunkRecorder {
+        private static final String ROLLUP_QUERY = "select day, amount, transaction_count as transactions " +
+                "from seller_daily_revenue where seller_id = ? order by day";
+        private static final String TRANSACTIONS_QUERY = "select cast(transaction_date as date) as day, " +
+                "sum(amount) as amount, count(*) as transactions " +
+                "from transaction where seller_id = ? group by cast(transaction_date as date) order by day";
+
+        record Chunk(Set<Integer> sellers, int size, boolean rollupMatches) {}
+
+        private final List<Chunk> chunks = new CopyOnWriteArrayList<>();
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        // Runs inside the chunk's transaction, after the rollup was decremented by the deleted rows.
+        @EventListener
+        public void onTransactionsChanged(TransactionChangedEvent event) {
+            Set<Integer> sellers = event.changes().stream()
+                    .filter(change -> change.before() != null && change.after() == null)
+                    .map(change -> change.before().sellerId())
+                    .collect(Collectors.toSet());
+            if (sellers.isEmpty()) {
+                return;
+            }
+            boolean rollupMatches = sellers.stream()
+                    .allMatch(sellerId -> jdbcTemplate.queryForList(ROLLUP_QUERY, sellerId)
+                            .equals(jdbcTemplate.queryForList(TRANSACTIONS_QUERY, sellerId)));
+            chunks.add(new Chunk(sellers, event.changes().size(), rollupMatches));
+        }
+
+        List<Chunk> chunksOf(Set<Integer> sellerIds) {
+            return chunks.stream()
+                    .filter(chunk -> sellerIds.containsAll(chunk.sellers()))
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.task.Crm.Services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class VersionRegistryTests {
+    private final VersionRegistry registry = new VersionRegistry(16, false, Duration.ZERO, Duration.ZERO);
+
+    @Test @DisplayName("A version is bumped only after every afterCommit callback of the transaction ran")
+    void testBumpAfterCommitCallbacks() {
+        String before = registry.sellerTag(1);
+        List<String> seenByEviction = new ArrayList<>();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            registry.sellerChanged(1);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    seenByEviction.add(registry.sellerTag(1));
+                }
+            });
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            assertEquals(List.of(before), seenByEviction);
+            assertEquals(before, registry.sellerTag(1));
+
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertNotEquals(before, registry.sellerTag(1));
+        assertEquals(registry.sellerTag(1), registry.sellerTag(1 + 16));
+    }
+
+    @Test @DisplayName("A rolled back write does not bump the version")
+    void testRollback() {
+        String before = registry.analyticsTag("best");
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            registry.analyticsChanged();
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(before, registry.analyticsTag("best"));
+    }
+
+    @Test @DisplayName("Imported rows bump seller and transaction tags but leave analytics to the reload")
+    void testSellersAndTransactionsChanged() {
+        String seller = registry.sellerTag(3);
+        String sellers = registry.sellersTag();
+        String transaction = registry.transactionTag(7);
+        String analytics = registry.analyticsTag("series");
+
+        registry.sellersAndTransactionsChanged();
+        assertNotEquals(seller, registry.sellerTag(3));
+        assertNotEquals(sellers, registry.sellersTag());
+        assertNotEquals(transaction, registry.transactionTag(7));
+        assertEquals(analytics, registry.analyticsTag("series"));
+
+        registry.analyticsChanged();
+        assertNotEquals(analytics, registry.analyticsTag("series"));
+    }
+
+    @Test @DisplayName("With replicas no tag is issued until a bump has settled")
+    void testReplicaSettleWindow() {
+        VersionRegistry replicated = new VersionRegistry(16, true, Duration.ofMillis(100), Duration.ofMillis(100));
+        assertNull(replicated.sellerTag(1));
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (replicated.sellerTag(1) == null && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertNotNull(replicated.sellerTag(1));
+
+        replicated.sellerChanged(1);
+        assertNull(replicated.sellerTag(1));
+        assertNotNull(replicated.sellerTag(2));
+    }
+}
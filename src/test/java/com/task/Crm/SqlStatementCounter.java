@@ -0,0 +1,66 @@
+package com.task.Crm;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestComponent
+public class SqlStatementCounter implements QueryExecutionListener {
+    public record Statement(String sql, Object[] parameters) {}
+
+    private final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+    private final List<Statement> bound = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        statements.add(queryInfoList.stream()
+                .map(QueryInfo::getQuery)
+                .reduce((a, b) -> a + "; " + b)
+                .orElse(""));
+        for (QueryInfo queryInfo : queryInfoList) {
+            List<List<ParameterSetOperation>> parameterSets = queryInfo.getParametersList();
+            List<ParameterSetOperation> parameters = parameterSets.isEmpty() ? List.of() : parameterSets.get(0);
+            bound.add(new Statement(queryInfo.getQuery(), parameters.stream()
+                    .sorted(Comparator.comparingInt(operation -> (Integer) operation.getArgs()[0]))
+                    .map(operation -> operation.getMethod().getName().equals("setNull") ? null : operation.getArgs()[1])
+                    .toArray()));
+        }
+    }
+
+    public void reset() {
+        statements.clear();
+        bound.clear();
+    }
+
+    public int getCount() {
+        return statements.size();
+    }
+
+    public List<Statement> getStatements() {
+        synchronized (bound) {
+            return new ArrayList<>(bound);
+        }
+    }
+
+    public void assertAtMost(int budget, String endpoint) {
+        List<String> executed;
+        synchronized (statements) {
+            executed = new ArrayList<>(statements);
+        }
+        assertTrue(executed.size() <= budget, () -> endpoint + " executed " + executed.size()
+                + " SQL statements, budget is " + budget + ":\n" + String.join("\n", executed));
+    }
+}
@@ -2,75 +2,244 @@ package com.task.Crm;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
 @SpringBootTest
 @AutoConfigureMockMvc
+@Import(SqlStatementCounter.class)
 class CrmSystemTests {
     private static final String BASE_URL_SELLERS = "/api/sellers";
     private static final String BASE_URL_TRANSACTIONS = "/api/transactions";
+    private static final String BASE_URL_IMPORT = "/api/import";
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @BeforeEach
     void setUp() throws Exception {}
 
     @Test @DisplayName("Test CRUD operations for Seller")
     void testSellerEndpoints() throws Exception {
         testGetSellers();
+        testGetSellersPage();
+        testGetSellersPageBadRequest();
         testGetSellerById();
+        testGetSellerByIdNotModified();
         testGetSellerByIdNotFound();
         testPostCreateSeller();
         testPatchUpdateSeller();
+        testPostOffboardSellers();
+        testPostOffboardSellersBadRequest();
         testGetTransactionBySellerId();
+        testGetTransactionBySellerIdPage();
         testGetTransactionBySellerIdNotFound();
     }
     @Test @DisplayName("Test analyse operations for Seller")
     void testAnalyseSellerEndpoints() throws Exception {
         testGetBestSellerForPeriod();
+        testGetBestSellerForPeriodNotModified();
         testGetBestSellerForPeriodBadRequest();
         testGetSellersBelowAmountForPeriod();
         testGetSellersBelowAmountForPeriodBadRequest();
+        testGetRevenueSeries();
+        testGetRevenueSeriesBadRequest();
+        testGetLeaderboard();
+        testGetLeaderboardBadRequest();
+    }
+
+    @Test @DisplayName("Test import operations")
+    void testImportEndpoints() throws Exception {
+        testGetImportStatusNotFound();
+        testImportLocalFileDisabled();
     }
 
     @Test @DisplayName("Test CRUD operations for Transaction")
     void testTransactionEndpoints() throws Exception {
         testGetTransactions();
+        testExportTransactions();
+        testExportTransactionsBadRequest();
         testGetTransactionById();
         testGetTransactionByIdNotFound();
         testPostCreateTransaction();
+        testPostBatchTransactions();
+        testEnqueueTransaction();
+        testPatchUpdateTransaction();
+        testPatchUpdateTransactionNotFound();
+        testPatchBatchTransactions();
+        testGetChanges();
+        testGetChangesBadRequest();
+    }
+
+    private void testGetImportStatusNotFound() throws Exception {
+        perform(get(BASE_URL_IMPORT + "/status/" + UUID.randomUUID()), 0)
+                .andExpect(status().isNotFound());
+    }
+
+    private void testImportLocalFileDisabled() throws Exception {
+        perform(post(BASE_URL_IMPORT + "/transactions")
+                        .param("path", "transactions.csv"), 0)
+                .andExpect(status().isBadRequest());
     }
 
     private void testGetTransactionByIdNotFound() throws Exception {
-        mockMvc.perform(get(BASE_URL_TRANSACTIONS + "/getTransaction/1000"))
+        perform(get(BASE_URL_TRANSACTIONS + "/getTransaction/1000"), 1)
                 .andExpect(status().isNotFound());
     }
 
     private void testGetTransactionById() throws Exception {
-        mockMvc.perform(get(BASE_URL_TRANSACTIONS + "/getTransaction/1"))
+        perform(get(BASE_URL_TRANSACTIONS + "/getTransaction/1"), 1)
+                .andExpect(status().isOk());
+    }
+
+    private void testExportTransactions() throws Exception {
+        sqlStatementCounter.reset();
+        MvcResult result = mockMvc.perform(get(BASE_URL_TRANSACTIONS + "/exportTransactions")
+                        .param("sellerId", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk());
+        sqlStatementCounter.assertAtMost(1, "GET " + BASE_URL_TRANSACTIONS + "/exportTransactions");
+    }
+
+    private void testGetChanges() throws Exception {
+        sqlStatementCounter.reset();
+        MvcResult result = mockMvc.perform(get(BASE_URL_TRANSACTIONS + "/getChanges")
+                        .param("size", "10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes").isArray())
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty());
+        sqlStatementCounter.assertAtMost(1, "GET " + BASE_URL_TRANSACTIONS + "/getChanges");
+
+        String cursor = null;
+        JsonNode page;
+        do {
+            page = pollChanges(cursor);
+            cursor = page.get("nextCursor").asText();
+        } while (!page.get("changes").isEmpty());
+
+        int transactionId = createTransaction(1, 12_345);
+        updateTransactionAmount(transactionId, 12_346);
+        perform(delete(BASE_URL_TRANSACTIONS + "/deleteTransaction/" + transactionId), 5)
+                .andExpect(status().isOk());
+        page = pollChanges(cursor);
+        assertEquals(List.of("INSERT 12345", "UPDATE 12346", "DELETE 12346"), changesOf(page, transactionId));
+
+        MvcResult parked = mockMvc.perform(get(BASE_URL_TRANSACTIONS + "/getChanges")
+                        .param("cursor", page.get("nextCursor").asText())
+                        .param("wait", "10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult parkedSingle = mockMvc.perform(get(BASE_URL_TRANSACTIONS + "/getChanges")
+                        .param("cursor", page.get("nextCursor").asText())
+                        .param("size", "1")
+                        .param("wait", "10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        int wakingTransactionId = createTransaction(1, 54_321);
+        try {
+            for (MvcResult waiter : List.of(parked, parkedSingle)) {
+                String woken = mockMvc.perform(asyncDispatch(waiter))
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsString();
+                assertEquals(List.of("INSERT 54321"),
+                        changesOf(new ObjectMapper().readTree(woken), wakingTransactionId));
+            }
+        } finally {
+            perform(delete(BASE_URL_TRANSACTIONS + "/deleteTransaction/" + wakingTransactionId), 5)
+                    .andExpect(status().isOk());
+        }
+    }
+
+    private JsonNode pollChanges(String cursor) throws Exception {
+        MockHttpServletRequestBuilder builder = get(BASE_URL_TRANSACTIONS + "/getChanges")
+                .param("size", "1000");
+        if (cursor != null) {
+            builder.param("cursor", cursor);
+        }
+        MvcResult result = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String response = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return new ObjectMapper().readTree(response);
+    }
+
+    private List<String> changesOf(JsonNode page, int transactionId) {
+        List<String> changes = new ArrayList<>();
+        for (JsonNode change : page.get("changes")) {
+            if (change.get("transactionId").asInt() == transactionId) {
+                changes.add(change.get("operation").asText() + " " + change.get("amount").asInt());
+            }
+        }
+        return changes;
+    }
+
+    private void testGetChangesBadRequest() throws Exception {
+        perform(get(BASE_URL_TRANSACTIONS + "/getChanges")
+                        .param("size", "0"), 0)
+                .andExpect(status().isBadRequest());
+        perform(get(BASE_URL_TRANSACTIONS + "/getChanges")
+                        .param("cursor", "not-a-cursor"), 0)
+                .andExpect(status().isBadRequest());
+    }
+
+    private void testExportTransactionsBadRequest() throws Exception {
+        perform(get(BASE_URL_TRANSACTIONS + "/exportTransactions")
+                        .param("from", "2024-10-30T07:55:03")
+                        .param("to", "2022-10-19T07:44:03"), 0)
+                .andExpect(status().isBadRequest());
     }
 
     private void testGetTransactions() throws Exception {
-        mockMvc.perform(get(BASE_URL_TRANSACTIONS + "/getTransactions"))
+        perform(get(BASE_URL_TRANSACTIONS + "/getTransactions"), 1)
                 .andExpect(status().isOk());
     }
 
     private void testPostCreateTransaction() throws Exception {
-        mockMvc.perform(post(BASE_URL_TRANSACTIONS + "/createTransaction")
+        perform(post(BASE_URL_TRANSACTIONS + "/createTransaction")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{    \n" +
                                 "    \"amount\": 10,\n" +
@@ -78,66 +247,402 @@ class CrmSystemTests {
                                 "    \"seller\": {\n" +
                                 "        \"id\": 1\n" +
                                 "    }\n" +
-                                "}"))
+                                "}"), 5)
                 .andExpect(status().isOk());
 
-        String responseString = mockMvc.perform(get(BASE_URL_TRANSACTIONS + "/getMaxId")
-                        .contentType(MediaType.APPLICATION_JSON))
+        String responseString = perform(get(BASE_URL_TRANSACTIONS + "/getMaxId")
+                        .contentType(MediaType.APPLICATION_JSON), 1)
                 .andExpect(status().isOk())
                 .andReturn().getResponse().getContentAsString();
 
         int currentTransactionId = Integer.parseInt(responseString);
-        mockMvc.perform(delete(BASE_URL_TRANSACTIONS + "/deleteTransaction/" + currentTransactionId))
+        perform(delete(BASE_URL_TRANSACTIONS + "/deleteTransaction/" + currentTransactionId), 5)
+                .andExpect(status().isOk());
+    }
+    private void testPostBatchTransactions() throws Exception {
+        perform(post(BASE_URL_TRANSACTIONS + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\n" +
+                                "    {\"amount\": 10, \"paymentType\": \"CASH\", \"seller\": {\"id\": 1}},\n" +
+                                "    {\"amount\": 20, \"paymentType\": \"CARD\", \"seller\": {\"id\": 1000}}\n" +
+                                "]"), 5)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0].index").value(1));
+
+        String responseString = perform(get(BASE_URL_TRANSACTIONS + "/getMaxId"), 1)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        perform(delete(BASE_URL_TRANSACTIONS + "/deleteTransaction/" + Integer.parseInt(responseString)), 5)
                 .andExpect(status().isOk());
+
+        String paymentType = "BATCH-" + UUID.randomUUID().toString().substring(0, 8);
+        String item = "{\"amount\": %d, \"paymentType\": \"%s\", \"seller\": {\"id\": 1}}";
+        perform(post(BASE_URL_TRANSACTIONS + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + String.format(item, 10, paymentType) + ", "
+                                + String.format(item, 20, "X".repeat(21)) + ", "
+                                + String.format(item, 30, paymentType) + "]"), 5)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0].index").value(1))
+                .andExpect(jsonPath("$.errors[0].message").value("Payment type should be at most 20 characters"));
+
+        List<Integer> persisted = jdbcTemplate.queryForList("select id from transaction " +
+                "where payment_type = ? and seller_id = 1 order by amount", Integer.class, paymentType);
+        assertEquals(2, persisted.size());
+        for (int id : persisted) {
+            perform(delete(BASE_URL_TRANSACTIONS + "/deleteTransaction/" + id), 5)
+                    .andExpect(status().isOk());
+        }
+    }
+
+    private void testEnqueueTransaction() throws Exception {
+        String paymentType = "INGEST-" + UUID.randomUUID().toString().substring(0, 8);
+        double flushedBefore = meterRegistry.get("crm.ingest.batch.size").summary().totalAmount();
+
+        String committedId = enqueueTransaction("{\"amount\": 15, \"paymentType\": \"" + paymentType
+                + "\", \"seller\": {\"id\": 1}}");
+        String failedId = enqueueTransaction("{\"amount\": 15, \"paymentType\": \"" + paymentType
+                + "\", \"seller\": {\"id\": 1000}}");
+
+        awaitIngestStatus(committedId)
+                .andExpect(jsonPath("$.status").value("COMMITTED"));
+        awaitIngestStatus(failedId)
+                .andExpect(jsonPath("$.status").value("FAILED"))
+                .andExpect(jsonPath("$.message").isNotEmpty());
+        assertEquals(flushedBefore + 2, meterRegistry.get("crm.ingest.batch.size").summary().totalAmount());
+
+        List<Integer> persisted = jdbcTemplate.queryForList("select id from transaction " +
+                "where payment_type = ? and seller_id = 1 and amount = 15", Integer.class, paymentType);
+        assertEquals(1, persisted.size());
+        perform(delete(BASE_URL_TRANSACTIONS + "/deleteTransaction/" + persisted.get(0)), 5)
+                .andExpect(status().isOk());
+
+        perform(get(BASE_URL_TRANSACTIONS + "/ingestStatus/" + UUID.randomUUID()), 0)
+                .andExpect(status().isNotFound());
     }
+
+    private String enqueueTransaction(String body) throws Exception {
+        String response = perform(post(BASE_URL_TRANSACTIONS + "/enqueueTransaction")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body), 0)
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("ACCEPTED"))
+                .andReturn().getResponse().getContentAsString();
+        return new ObjectMapper().readTree(response).get("trackingId").asText();
+    }
+
+    private ResultActions awaitIngestStatus(String trackingId) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            ResultActions result = perform(get(BASE_URL_TRANSACTIONS + "/ingestStatus/" + trackingId), 0)
+                    .andExpect(status().isOk());
+            String status = new ObjectMapper().readTree(result.andReturn().getResponse().getContentAsString())
+                    .get("status").asText();
+            if (!status.equals("ACCEPTED") || System.currentTimeMillis() > deadline) {
+                return result;
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private void testPatchUpdateTransaction() throws Exception {
+        perform(patch(BASE_URL_TRANSACTIONS + "/updateTransaction/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"paymentType\": \"CASH\"}"), 2)
+                .andExpect(status().isOk());
+    }
+
+    private void testPatchUpdateTransactionNotFound() throws Exception {
+        perform(patch(BASE_URL_TRANSACTIONS + "/updateTransaction/1000")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 5}"), 1)
+                .andExpect(status().isNotFound());
+    }
+
+    private void testPatchBatchTransactions() throws Exception {
+        perform(patch(BASE_URL_TRANSACTIONS + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\n" +
+                                "    {\"id\": 1, \"paymentType\": \"CASH\"},\n" +
+                                "    {\"id\": 1000, \"amount\": 5},\n" +
+                                "    {\"amount\": 5}\n" +
+                                "]"), 2)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.errors[0].index").value(1))
+                .andExpect(jsonPath("$.errors[1].index").value(2));
+    }
+
     private void testGetSellersBelowAmountForPeriodBadRequest() throws Exception {
-        mockMvc.perform(get(BASE_URL_SELLERS + "/getSellersBelowAmountForPeriod/500")
+        perform(get(BASE_URL_SELLERS + "/getSellersBelowAmountForPeriod/500")
                         .param("startDate", (String) null)
-                        .param("endDate", "2024-10-30T07:55:03"))
+                        .param("endDate", "2024-10-30T07:55:03"), 0)
                 .andExpect(status().isBadRequest());
     }
 
     private void testGetSellersBelowAmountForPeriod() throws Exception {
-        mockMvc.perform(get(BASE_URL_SELLERS + "/getSellersBelowAmountForPeriod/500")
+        int sellerId = createSeller("no-transactions");
+
+        perform(get(BASE_URL_SELLERS + "/getSellersBelowAmountForPeriod/500")
                         .param("startDate", "2022-10-19T07:44:03")
-                        .param("endDate", "2024-10-30T07:55:03"))
+                        .param("endDate", "2024-10-30T07:55:03"), 1)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", hasItem(sellerId)));
+        perform(delete(BASE_URL_SELLERS + "/deleteSeller/" + sellerId), 2)
                 .andExpect(status().isOk());
     }
 
     private void testGetBestSellerForPeriodBadRequest() throws Exception {
-        mockMvc.perform(get(BASE_URL_SELLERS + "/getBestSellerForPeriod/incorrectPeriod")
+        perform(get(BASE_URL_SELLERS + "/getBestSellerForPeriod/incorrectPeriod")
+                        .param("startDate", "2022-10-19T07:44:03")
+                        .param("endDate", "2024-10-30T07:55:03"), 0)
+                .andExpect(status().isBadRequest());
+    }
+
+    private void testGetRevenueSeries() throws Exception {
+        int first = insertSeller("series-first");
+        int second = insertSeller("series-second");
+        try {
+            insertTransaction(first, 100, "CARD", "1999-01-05T10:00:00");
+            insertTransaction(first, 50, "CASH", "1999-01-20T12:30:00");
+            insertTransaction(second, 200, "CARD", "1999-01-31T23:59:59");
+            insertTransaction(first, 30, "CARD", "1999-02-10T08:00:00");
+            insertTransaction(second, 10, "CASH", "1999-03-01T00:00:00");
+
+            ResultActions total = getRevenueSeries(first, second, false, false)
+                    .andExpect(jsonPath("$.length()").value(2));
+            expectBucket(total, 0, "1999-01-01T00:00:00", null, null, 350, 3);
+            expectBucket(total, 1, "1999-02-01T00:00:00", null, null, 30, 1);
+
+            ResultActions perSeller = getRevenueSeries(first, second, true, false)
+                    .andExpect(jsonPath("$.length()").value(3));
+            expectBucket(perSeller, 0, "1999-01-01T00:00:00", first, null, 150, 2);
+            expectBucket(perSeller, 1, "1999-01-01T00:00:00", second, null, 200, 1);
+            expectBucket(perSeller, 2, "1999-02-01T00:00:00", first, null, 30, 1);
+
+            ResultActions byPaymentType = getRevenueSeries(first, second, false, true)
+                    .andExpect(jsonPath("$.length()").value(3));
+            expectBucket(byPaymentType, 0, "1999-01-01T00:00:00", null, "CARD", 300, 2);
+            expectBucket(byPaymentType, 1, "1999-01-01T00:00:00", null, "CASH", 50, 1);
+            expectBucket(byPaymentType, 2, "1999-02-01T00:00:00", null, "CARD", 30, 1);
+
+            ResultActions perSellerByPaymentType = getRevenueSeries(first, second, true, true)
+                    .andExpect(jsonPath("$.length()").value(4));
+            expectBucket(perSellerByPaymentType, 0, "1999-01-01T00:00:00", first, "CARD", 100, 1);
+            expectBucket(perSellerByPaymentType, 1, "1999-01-01T00:00:00", first, "CASH", 50, 1);
+            expectBucket(perSellerByPaymentType, 2, "1999-01-01T00:00:00", second, "CARD", 200, 1);
+            expectBucket(perSellerByPaymentType, 3, "1999-02-01T00:00:00", first, "CARD", 30, 1);
+        } finally {
+            jdbcTemplate.update("delete from transaction where seller_id in (?, ?)", first, second);
+            jdbcTemplate.update("delete from seller where id in (?, ?)", first, second);
+        }
+    }
+
+    private ResultActions getRevenueSeries(int first, int second, boolean perSeller, boolean byPaymentType)
+            throws Exception {
+        return perform(get(BASE_URL_SELLERS + "/getRevenueSeries/month")
+                        .param("startDate", "1999-01-01T00:00:00")
+                        .param("endDate", "1999-03-01T00:00:00")
+                        .param("sellerIds", Integer.toString(first), Integer.toString(second))
+                        .param("perSeller", Boolean.toString(perSeller))
+                        .param("byPaymentType", Boolean.toString(byPaymentType)), 1)
+                .andExpect(status().isOk());
+    }
+
+    private void expectBucket(ResultActions result, int index, String bucketStart, Integer sellerId,
+                              String paymentType, long amount, long transactionCount) throws Exception {
+        String bucket = "$[" + index + "]";
+        result.andExpect(jsonPath(bucket + ".bucketStart").value(bucketStart))
+                .andExpect(jsonPath(bucket + ".sellerId").value(sellerId))
+                .andExpect(jsonPath(bucket + ".paymentType").value(paymentType))
+                .andExpect(jsonPath(bucket + ".amount").value(amount))
+                .andExpect(jsonPath(bucket + ".transactionCount").value(transactionCount));
+    }
+
+    private int insertSeller(String name) {
+        return jdbcTemplate.queryForObject("insert into seller (name, contact_info, registration_date) " +
+                "values (?, ?, now()) returning id", Integer.class, name, name + "@company.com");
+    }
+
+    private void insertTransaction(int sellerId, int amount, String paymentType, String transactionDate) {
+        jdbcTemplate.update("insert into transaction (seller_id, amount, payment_type, transaction_date) " +
+                "values (?, ?, ?, cast(? as timestamp))", sellerId, amount, paymentType, transactionDate);
+    }
+
+    private void testGetRevenueSeriesBadRequest() throws Exception {
+        perform(get(BASE_URL_SELLERS + "/getRevenueSeries/decade")
                         .param("startDate", "2022-10-19T07:44:03")
-                        .param("endDate", "2024-10-30T07:55:03"))
+                        .param("endDate", "2024-10-30T07:55:03"), 0)
+                .andExpect(status().isBadRequest());
+        perform(get(BASE_URL_SELLERS + "/getRevenueSeries/hour")
+                        .param("startDate", "2000-10-19T07:44:03")
+                        .param("endDate", "2024-10-30T07:55:03"), 0)
+                .andExpect(status().isBadRequest());
+    }
+
+    private void testGetLeaderboard() throws Exception {
+        perform(get(BASE_URL_SELLERS + "/getLeaderboard/year")
+                        .param("size", "5"), 1)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.period").value("year"));
+
+        int first = createSeller("leaderboard-first");
+        int second = createSeller("leaderboard-second");
+        int firstTransaction = createTransaction(first, 1_000_000_000);
+        int secondTransaction = createTransaction(second, 900_000_000);
+        try {
+            ResultActions board = getDayLeaderboard();
+            expectStanding(board, 0, 1, first, 1_000_000_000);
+            expectStanding(board, 1, 2, second, 900_000_000);
+
+            updateTransactionAmount(secondTransaction, 1_100_000_000);
+            board = getDayLeaderboard();
+            expectStanding(board, 0, 1, second, 1_100_000_000);
+            expectStanding(board, 1, 2, first, 1_000_000_000);
+
+            updateTransactionAmount(secondTransaction, 1_000_000_000);
+            board = getDayLeaderboard();
+            expectStanding(board, 0, 1, first, 1_000_000_000);
+            expectStanding(board, 1, 1, second, 1_000_000_000);
+        } finally {
+            perform(delete(BASE_URL_TRANSACTIONS + "/deleteTransaction/" + firstTransaction), 5)
+                    .andExpect(status().isOk());
+            perform(delete(BASE_URL_TRANSACTIONS + "/deleteTransaction/" + secondTransaction), 5)
+                    .andExpect(status().isOk());
+            perform(delete(BASE_URL_SELLERS + "/deleteSeller/" + first), 2)
+                    .andExpect(status().isOk());
+            perform(delete(BASE_URL_SELLERS + "/deleteSeller/" + second), 2)
+                    .andExpect(status().isOk());
+        }
+        getDayLeaderboard()
+                .andExpect(jsonPath("$.sellers[*].seller.id", not(hasItem(first))))
+                .andExpect(jsonPath("$.sellers[*].seller.id", not(hasItem(second))));
+    }
+
+    private ResultActions getDayLeaderboard() throws Exception {
+        return perform(get(BASE_URL_SELLERS + "/getLeaderboard/day")
+                        .param("size", "2"), 1)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.period").value("day"));
+    }
+
+    private void expectStanding(ResultActions result, int index, int rank, int sellerId, long amount)
+            throws Exception {
+        String standing = "$.sellers[" + index + "]";
+        result.andExpect(jsonPath(standing + ".rank").value(rank))
+                .andExpect(jsonPath(standing + ".seller.id").value(sellerId))
+                .andExpect(jsonPath(standing + ".amount").value(amount))
+                .andExpect(jsonPath(standing + ".transactionCount").value(1));
+    }
+
+    private int createSeller(String name) throws Exception {
+        perform(post(BASE_URL_SELLERS + "/createSeller")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"" + name + "\", " +
+                                "\"contact_info\": \"" + name + "@company.com\"}"), 1)
+                .andExpect(status().isOk());
+        String response = perform(get(BASE_URL_SELLERS + "/getSellerByName/" + name), 1)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return new ObjectMapper().readTree(response).get("id").asInt();
+    }
+
+    private int createTransaction(int sellerId, int amount) throws Exception {
+        perform(post(BASE_URL_TRANSACTIONS + "/createTransaction")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": " + amount + ", \"paymentType\": \"CARD\", " +
+                                "\"seller\": {\"id\": " + sellerId + "}}"), 5)
+                .andExpect(status().isOk());
+        String response = perform(get(BASE_URL_TRANSACTIONS + "/getMaxId"), 1)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Integer.parseInt(response);
+    }
+
+    private void updateTransactionAmount(int transactionId, int amount) throws Exception {
+        perform(patch(BASE_URL_TRANSACTIONS + "/updateTransaction/" + transactionId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": " + amount + "}"), 3)
+                .andExpect(status().isOk());
+    }
+
+    private void testGetLeaderboardBadRequest() throws Exception {
+        perform(get(BASE_URL_SELLERS + "/getLeaderboard/decade"), 0)
+                .andExpect(status().isBadRequest());
+        perform(get(BASE_URL_SELLERS + "/getLeaderboard/day")
+                        .param("size", "0"), 0)
                 .andExpect(status().isBadRequest());
     }
 
     private void testGetBestSellerForPeriod() throws Exception {
-        mockMvc.perform(get(BASE_URL_SELLERS + "/getBestSellerForPeriod/specifiedDates")
+        perform(get(BASE_URL_SELLERS + "/getBestSellerForPeriod/specifiedDates")
                         .param("startDate", "2022-10-19T07:44:03")
-                        .param("endDate", "2024-10-30T07:55:03"))
+                        .param("endDate", "2024-10-30T07:55:03"), 1)
                 .andExpect(status().isOk());
     }
 
+    private void testGetBestSellerForPeriodNotModified() throws Exception {
+        String etag = perform(get(BASE_URL_SELLERS + "/getBestSellerForPeriod/specifiedDates")
+                        .param("startDate", "2022-10-19T07:44:03")
+                        .param("endDate", "2024-10-30T07:55:03"), 1)
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        perform(get(BASE_URL_SELLERS + "/getBestSellerForPeriod/specifiedDates")
+                        .param("startDate", "2022-10-19T07:44:03")
+                        .param("endDate", "2024-10-30T07:55:03")
+                        .header("If-None-Match", etag), 0)
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
     private void testGetTransactionBySellerIdNotFound() throws Exception {
-        mockMvc.perform(get(BASE_URL_SELLERS + "/getTransactionBySellerId/1000"))
+        perform(get(BASE_URL_SELLERS + "/getTransactionBySellerId/1000"), 1)
                 .andExpect(status().isNotFound());
     }
 
     private void testGetTransactionBySellerId() throws Exception {
-        mockMvc.perform(get(BASE_URL_SELLERS + "/getTransactionBySellerId/1"))
-                .andExpect(status().isOk());
+        perform(get(BASE_URL_SELLERS + "/getTransactionBySellerId/1"), 2)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isArray())
+                .andExpect(jsonPath("$[0].seller.id").value(1));
+    }
+
+    private void testGetTransactionBySellerIdPage() throws Exception {
+        perform(get(BASE_URL_SELLERS + "/getTransactionBySellerIdPage/1"), 2)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions").isArray());
+
+        perform(get(BASE_URL_SELLERS + "/getTransactionBySellerIdPage/1")
+                        .param("size", "1")
+                        .param("from", "2000-01-01T00:00:00")
+                        .param("to", "2100-01-01T00:00:00"), 2)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions.length()").value(1));
+
+        perform(get(BASE_URL_SELLERS + "/getTransactionBySellerIdPage/1")
+                        .param("cursor", "not a cursor"), 1)
+                .andExpect(status().isBadRequest());
     }
 
     private void testPostCreateSeller() throws Exception {
-        mockMvc.perform(post(BASE_URL_SELLERS + "/createSeller")
+        perform(post(BASE_URL_SELLERS + "/createSeller")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\n" +
                                 "    \"name\": \"test\",\n" +
                                 "    \"contact_info\": \"test@company.com\"\n" +
-                                "}"))
+                                "}"), 1)
                 .andExpect(status().isOk());
 
-        String response = mockMvc.perform(get(BASE_URL_SELLERS + "/getSellerByName/test"))
+        String response = perform(get(BASE_URL_SELLERS + "/getSellerByName/test"), 1)
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").exists())
                 .andReturn()
@@ -147,30 +652,106 @@ class CrmSystemTests {
         ObjectMapper objectMapper = new ObjectMapper();
         JsonNode jsonNode = objectMapper.readTree(response);
         int currentTestSellerId = jsonNode.get("id").asInt();
-        mockMvc.perform(delete(BASE_URL_SELLERS + "/deleteSeller/" + currentTestSellerId));
+        perform(delete(BASE_URL_SELLERS + "/deleteSeller/" + currentTestSellerId), 2);
+    }
+
+    private void testPostOffboardSellers() throws Exception {
+        perform(post(BASE_URL_SELLERS + "/createSeller")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\n" +
+                                "    \"name\": \"offboard\",\n" +
+                                "    \"contact_info\": \"offboard@company.com\"\n" +
+                                "}"), 1)
+                .andExpect(status().isOk());
+
+        String response = perform(get(BASE_URL_SELLERS + "/getSellerByName/offboard"), 1)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        int sellerId = new ObjectMapper().readTree(response).get("id").asInt();
+
+        perform(post(BASE_URL_SELLERS + "/offboard")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"sellerIds\": [" + sellerId + ", 100000], \"archive\": true}"), 2)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sellers").value(1))
+                .andExpect(jsonPath("$.transactions").value(0))
+                .andExpect(jsonPath("$.notFound[0]").value(100000));
+    }
+
+    private void testPostOffboardSellersBadRequest() throws Exception {
+        perform(post(BASE_URL_SELLERS + "/offboard")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"sellerIds\": []}"), 0)
+                .andExpect(status().isBadRequest());
     }
 
     private void testPatchUpdateSeller() throws Exception {
-        mockMvc.perform(patch(BASE_URL_SELLERS + "/updateSeller/1")
+        perform(patch(BASE_URL_SELLERS + "/updateSeller/1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\n" +
                                 "    \"name\": \"Джордж Моа\"\n" +
-                                "}"))
+                                "}"), 1)
                 .andExpect(status().isOk());
     }
 
     private void testGetSellerByIdNotFound() throws Exception {
-        mockMvc.perform(get(BASE_URL_SELLERS + "/getSellerById/1000"))
+        perform(get(BASE_URL_SELLERS + "/getSellerById/1000"), 1)
                 .andExpect(status().isNotFound());
     }
 
+    private void testGetSellerByIdNotModified() throws Exception {
+        String etag = perform(get(BASE_URL_SELLERS + "/getSellerById/1"), 1)
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        perform(get(BASE_URL_SELLERS + "/getSellerById/1")
+                        .header("If-None-Match", etag), 0)
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        perform(patch(BASE_URL_SELLERS + "/updateSeller/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"contact_info\": \"george@company.com\"}"), 1)
+                .andExpect(status().isOk());
+
+        perform(get(BASE_URL_SELLERS + "/getSellerById/1")
+                        .header("If-None-Match", etag), 1)
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
     private void testGetSellerById() throws Exception {
-        mockMvc.perform(get(BASE_URL_SELLERS + "/getSellerById/1"))
+        perform(get(BASE_URL_SELLERS + "/getSellerById/1"), 1)
                 .andExpect(status().isOk());
     }
 
+    private void testGetSellersPage() throws Exception {
+        perform(get(BASE_URL_SELLERS + "/getSellersPage")
+                        .param("size", "1"), 1)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sellers.length()").value(1));
+    }
+
+    private void testGetSellersPageBadRequest() throws Exception {
+        perform(get(BASE_URL_SELLERS + "/getSellersPage")
+                        .param("size", "0"), 0)
+                .andExpect(status().isBadRequest());
+    }
+
     private void testGetSellers() throws Exception {
-        mockMvc.perform(get(BASE_URL_SELLERS + "/getSellers"))
+        perform(get(BASE_URL_SELLERS + "/getSellers"), 1)
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    private ResultActions perform(RequestBuilder request, int statementBudget) throws Exception {
+        sqlStatementCounter.reset();
+        ResultActions result = mockMvc.perform(request);
+        MvcResult mvcResult = result.andReturn();
+        sqlStatementCounter.assertAtMost(statementBudget,
+                mvcResult.getRequest().getMethod() + " " + mvcResult.getRequest().getRequestURI());
+        return result;
+    }
+}